@@ -0,0 +1,85 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.atlassian.bamboo.maven;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.atlassian.bamboo.build.logger.NullBuildLogger;
+import com.atlassian.bamboo.variable.VariableDefinition;
+import com.atlassian.bamboo.variable.VariableDefinitionImpl;
+
+/**
+ * Cost of {@link BambooVariableManager#addOrUpdateVariables(String, List)}
+ * against an in-memory plan with a given number of existing variables.
+ * 
+ * @author David Ehringer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BambooVariableManagerBenchmark {
+
+    private static final String PLAN_KEY = "PROJ-PLAN";
+
+    @Param({ "10", "500" })
+    public int existingVariables;
+
+    @Param({ "3", "1000" })
+    public int extractedVariables;
+
+    private BambooVariableManager manager;
+    private List<Variable> variables;
+
+    @Setup
+    public void createPlan() {
+        List<VariableDefinition> planVariables = new ArrayList<VariableDefinition>();
+        for (int i = 0; i < existingVariables; i++) {
+            VariableDefinition definition = new VariableDefinitionImpl();
+            definition.setKey("existing." + i);
+            definition.setValue("value-" + i);
+            planVariables.add(definition);
+        }
+        manager = new BambooVariableManager(Fakes.planManager(), Fakes.variableDefinitionManager(planVariables),
+                new NullBuildLogger());
+
+        variables = new ArrayList<Variable>();
+        for (int i = 0; i < extractedVariables; i++) {
+            variables.add(new Variable("maven.module-" + i + ".version", "2.3-SNAPSHOT"));
+        }
+    }
+
+    @Benchmark
+    public void addOrUpdateVariables() {
+        manager.addOrUpdateVariables(PLAN_KEY, variables);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.atlassian.bamboo.maven;
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.atlassian.bamboo.build.logger.NullBuildLogger;
+import com.atlassian.bamboo.configuration.ConfigurationMap;
+import com.atlassian.bamboo.plan.Plan;
+import com.atlassian.bamboo.plan.PlanManager;
+import com.atlassian.bamboo.task.CommonTaskContext;
+import com.atlassian.bamboo.variable.VariableDefinition;
+import com.atlassian.bamboo.variable.VariableDefinitionManager;
+
+/**
+ * In-memory stand-ins for the Bamboo services the benchmarks need. They are
+ * dynamic proxies so only the handful of methods the plugin calls have to be
+ * implemented.
+ * 
+ * @author David Ehringer
+ */
+final class Fakes {
+
+    private Fakes() {
+    }
+
+    static CommonTaskContext taskContext(final ConfigurationMap configurationMap, final File rootDirectory) {
+        return proxy(CommonTaskContext.class, new FakeHandler() {
+            Object handle(String method, Object[] args) {
+                if ("getConfigurationMap".equals(method)) {
+                    return configurationMap;
+                }
+                if ("getBuildLogger".equals(method)) {
+                    return new NullBuildLogger();
+                }
+                if ("getRootDirectory".equals(method) || "getWorkingDirectory".equals(method)) {
+                    return rootDirectory;
+                }
+                return unsupported(method);
+            }
+        });
+    }
+
+    static PlanManager planManager() {
+        final Plan plan = proxy(Plan.class, new FakeHandler() {
+            Object handle(String method, Object[] args) {
+                return null;
+            }
+        });
+        return proxy(PlanManager.class, new FakeHandler() {
+            Object handle(String method, Object[] args) {
+                if ("getPlanByKey".equals(method)) {
+                    return plan;
+                }
+                return unsupported(method);
+            }
+        });
+    }
+
+    /**
+     * Stores plan variables in a list, the way the real manager returns them.
+     */
+    static VariableDefinitionManager variableDefinitionManager(final List<VariableDefinition> planVariables) {
+        return proxy(VariableDefinitionManager.class, new FakeHandler() {
+            Object handle(String method, Object[] args) {
+                if ("getPlanVariables".equals(method)) {
+                    return new ArrayList<VariableDefinition>(planVariables);
+                }
+                if ("saveVariableDefinition".equals(method)) {
+                    VariableDefinition definition = (VariableDefinition) args[0];
+                    if (!planVariables.contains(definition)) {
+                        planVariables.add(definition);
+                    }
+                    return null;
+                }
+                return unsupported(method);
+            }
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(Fakes.class.getClassLoader(), new Class<?>[] { type }, handler));
+    }
+
+    private abstract static class FakeHandler implements InvocationHandler {
+
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            String name = method.getName();
+            if (method.getDeclaringClass() == Object.class) {
+                if ("equals".equals(name)) {
+                    return proxy == args[0];
+                }
+                if ("hashCode".equals(name)) {
+                    return System.identityHashCode(proxy);
+                }
+                return "fake " + proxy.getClass().getInterfaces()[0].getSimpleName();
+            }
+            return handle(name, args);
+        }
+
+        abstract Object handle(String method, Object[] args);
+
+        Object unsupported(String method) {
+            throw new UnsupportedOperationException(method);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.atlassian.bamboo.maven;
+
+import static com.davidehringer.atlassian.bamboo.maven.TaskConfiguration.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.atlassian.bamboo.configuration.ConfigurationMap;
+import com.atlassian.bamboo.configuration.ConfigurationMapImpl;
+import com.davidehringer.bamboo.maven.extractor.GeneratedPoms;
+import com.davidehringer.bamboo.maven.extractor.PomValueExtractorMavenModel;
+
+/**
+ * Cost of {@link VariablesExtractor#extractVariables(TaskConfiguration)} for
+ * GAV and custom extraction, including building the log messages.
+ * 
+ * @author David Ehringer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VariablesExtractorBenchmark {
+
+    @Param({ GeneratedPoms.SIZE_1KB, GeneratedPoms.SIZE_100KB, GeneratedPoms.SIZE_5MB })
+    public String pomSize;
+
+    @Param({ EXTRACT_MODE_GAV, EXTRACT_MODE_CUSTOM })
+    public String extractMode;
+
+    private VariablesExtractor extractor;
+    private TaskConfiguration config;
+
+    @Setup
+    public void configure() throws IOException {
+        File pom = GeneratedPoms.create(pomSize);
+        extractor = new VariablesExtractor(new PomValueExtractorMavenModel(pom));
+
+        ConfigurationMap configurationMap = new ConfigurationMapImpl();
+        configurationMap.put(VARIABLE_TYPE, VARIABLE_TYPE_RESULT);
+        configurationMap.put(EXTRACT_MODE, extractMode);
+        configurationMap.put(PREFIX_OPTION, PREFIX_OPTION_DEFAULT);
+        configurationMap.put(STRIP_SNAPSHOT, "true");
+        configurationMap.put(CUSTOM_ELEMENT, "dependencyManagement.dependencies[0].version");
+        configurationMap.put(CUSTOM_VARIABLE_NAME, "dependencyVersion");
+        config = new TaskConfiguration(Fakes.taskContext(configurationMap, pom.getParentFile()));
+    }
+
+    @Benchmark
+    public List<Variable> extractVariables() {
+        return extractor.extractVariables(config);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Writes synthetic POMs of a given size for the benchmarks. The GAV, parent,
+ * properties and build sections come first, the rest of the file is one
+ * dependency management section, much like a large BOM.
+ * 
+ * @author David Ehringer
+ */
+public final class GeneratedPoms {
+
+    public static final String SIZE_1KB = "1KB";
+    public static final String SIZE_100KB = "100KB";
+    public static final String SIZE_5MB = "5MB";
+
+    private GeneratedPoms() {
+    }
+
+    public static File create(String size) throws IOException {
+        File pom = File.createTempFile("pom-" + size + "-", ".xml");
+        pom.deleteOnExit();
+        write(pom, bytes(size));
+        return pom;
+    }
+
+    static long bytes(String size) {
+        if (SIZE_1KB.equals(size)) {
+            return 1024;
+        }
+        if (SIZE_100KB.equals(size)) {
+            return 100 * 1024;
+        }
+        if (SIZE_5MB.equals(size)) {
+            return 5 * 1024 * 1024;
+        }
+        throw new IllegalArgumentException("Unknown POM size " + size);
+    }
+
+    private static void write(File pom, long targetBytes) throws IOException {
+        StringBuilder head = new StringBuilder();
+        head.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        head.append("<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n");
+        head.append("  <modelVersion>4.0.0</modelVersion>\n");
+        head.append("  <parent>\n");
+        head.append("    <groupId>com.davidehringer</groupId>\n");
+        head.append("    <artifactId>benchmark-parent</artifactId>\n");
+        head.append("    <version>1.0</version>\n");
+        head.append("  </parent>\n");
+        head.append("  <groupId>com.davidehringer.bamboo.maven</groupId>\n");
+        head.append("  <artifactId>benchmark</artifactId>\n");
+        head.append("  <version>2.3-SNAPSHOT</version>\n");
+        head.append("  <properties>\n");
+        head.append("    <source.code.level>1.6</source.code.level>\n");
+        head.append("  </properties>\n");
+        head.append("  <build>\n");
+        head.append("    <finalName>benchmark</finalName>\n");
+        head.append("  </build>\n");
+
+        String sectionStart = "  <dependencyManagement>\n    <dependencies>\n";
+        String sectionEnd = "    </dependencies>\n  </dependencyManagement>\n";
+        String tail = "</project>\n";
+        Writer writer = new OutputStreamWriter(new FileOutputStream(pom), "UTF-8");
+        try {
+            writer.write(head.toString());
+            long written = head.length() + tail.length();
+            if (written < targetBytes) {
+                writer.write(sectionStart);
+                written += sectionStart.length() + sectionEnd.length();
+                int i = 0;
+                do {
+                    String dependency = "      <dependency>\n        <groupId>org.example.group" + (i % 50)
+                            + "</groupId>\n        <artifactId>artifact-" + i + "</artifactId>\n        <version>1."
+                            + i + ".0</version>\n      </dependency>\n";
+                    writer.write(dependency);
+                    written += dependency.length();
+                    i++;
+                } while (written < targetBytes);
+                writer.write(sectionEnd);
+            }
+            writer.write(tail);
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of reading a POM into a {@link PomValueExtractorMavenModel} as the POM
+ * grows. {@link #fileReader()} is the unbuffered, platform-charset
+ * <code>FileReader</code> the plugin used before {@link PomInput}; run with
+ * <code>-prof gc</code> to compare allocation.
+ * 
+ * @author David Ehringer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PomParsingBenchmark {
+
+    @Param({ GeneratedPoms.SIZE_1KB, GeneratedPoms.SIZE_100KB, GeneratedPoms.SIZE_5MB })
+    public String pomSize;
+
+    private File pom;
+
+    @Setup
+    public void generatePom() throws IOException {
+        pom = GeneratedPoms.create(pomSize);
+    }
+
+    @Benchmark
+    public PomValueExtractor mavenModel() throws IOException {
+        return new PomValueExtractorMavenModel(pom);
+    }
+
+    @Benchmark
+    public Model fileReader() throws IOException, XmlPullParserException {
+        FileReader reader = new FileReader(pom);
+        try {
+            return new MavenXpp3Reader().read(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Benchmark
+    public Model streamed() throws IOException, XmlPullParserException {
+        InputStream input = new BufferedInputStream(new FileInputStream(pom), 16 * 1024);
+        try {
+            return new MavenXpp3Reader().read(input);
+        } finally {
+            input.close();
+        }
+    }
+
+    @Benchmark
+    public Model mapped() throws IOException, XmlPullParserException {
+        InputStream input = PomInput.map(pom);
+        try {
+            return new MavenXpp3Reader().read(input);
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Only the build section is parsed, however large the rest of the POM is.
+     */
+    @Benchmark
+    public String lazyModel() throws IOException {
+        return new PomValueExtractorLazyModel(pom).getValue("build.finalName");
+    }
+
+    @Benchmark
+    public String fullModel() throws IOException {
+        return new PomValueExtractorMavenModel(pom).getValue("build.finalName");
+    }
+
+    /**
+     * With a parser and read buffer from the {@link PomParserPool}; compare
+     * its allocation rate with {@link #streamed()}, which sets up a new
+     * reader, parser and buffer for every POM.
+     */
+    @Benchmark
+    public Model pooled() throws IOException {
+        return MavenModelReader.read(pom);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of resolving values from an already parsed POM.
+ * 
+ * @author David Ehringer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PomValueExtractionBenchmark {
+
+    private static final List<String> GAV = Arrays.asList("groupId", "artifactId", "version");
+    private static final List<String> NESTED = Arrays.asList("parent.groupId", "parent.version", "build.finalName",
+            "properties(source.code.level)", "dependencyManagement.dependencies[0].version");
+
+    @Param({ GeneratedPoms.SIZE_1KB, GeneratedPoms.SIZE_100KB, GeneratedPoms.SIZE_5MB })
+    public String pomSize;
+
+    private PomValueExtractor extractor;
+
+    @Setup
+    public void parsePom() throws IOException {
+        extractor = new PomValueExtractorMavenModel(GeneratedPoms.create(pomSize));
+    }
+
+    @Benchmark
+    public void gavOneAtATime(Blackhole blackhole) {
+        for (String element : GAV) {
+            blackhole.consume(extractor.getValue(element));
+        }
+    }
+
+    @Benchmark
+    public void nestedOneAtATime(Blackhole blackhole) {
+        for (String element : NESTED) {
+            blackhole.consume(extractor.getValue(element));
+        }
+    }
+
+    @Benchmark
+    public Map<String, String> nestedBatch() {
+        return extractor.getValues(NESTED);
+    }
+}
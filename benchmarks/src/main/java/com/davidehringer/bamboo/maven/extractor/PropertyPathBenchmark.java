@@ -0,0 +1,93 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.beanutils.PropertyUtils;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares resolving a property expression with commons-beanutils against the
+ * cached {@link CompiledPropertyPath}.
+ * 
+ * @author David Ehringer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PropertyPathBenchmark {
+
+    @Param({ "version", "parent.version", "build.finalName", "dependencies[3].version",
+            "properties(source.code.level)" })
+    public String expression;
+
+    private Model model;
+
+    @Setup
+    public void createModel() {
+        model = new Model();
+        model.setGroupId("com.davidehringer.bamboo.maven");
+        model.setArtifactId("maven-pom-parser");
+        model.setVersion("2.3-SNAPSHOT");
+
+        Parent parent = new Parent();
+        parent.setGroupId("com.davidehringer");
+        parent.setArtifactId("parent");
+        parent.setVersion("1.0");
+        model.setParent(parent);
+
+        Build build = new Build();
+        build.setFinalName("maven-pom-parser");
+        model.setBuild(build);
+
+        for (int i = 0; i < 10; i++) {
+            Dependency dependency = new Dependency();
+            dependency.setGroupId("org.example");
+            dependency.setArtifactId("dependency-" + i);
+            dependency.setVersion("1." + i);
+            model.addDependency(dependency);
+        }
+        model.addProperty("source.code.level", "1.6");
+    }
+
+    @Benchmark
+    public Object beanutils() throws Exception {
+        return PropertyUtils.getProperty(model, expression);
+    }
+
+    @Benchmark
+    public Object compiledPath() {
+        return PropertyPathCompiler.compile(expression).evaluate(model);
+    }
+}
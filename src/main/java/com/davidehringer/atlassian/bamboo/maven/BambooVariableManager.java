@@ -15,7 +15,13 @@
  */
 package com.davidehringer.atlassian.bamboo.maven;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
 import com.atlassian.bamboo.build.logger.BuildLogger;
 import com.atlassian.bamboo.plan.Plan;
@@ -31,55 +37,141 @@ import com.atlassian.bamboo.variable.VariableType;
  */
 public class BambooVariableManager {
 
+	private static final Log LOG = LogFactory.getLog(BambooVariableManager.class);
+
 	private final PlanManager planManager;
 	private final VariableDefinitionManager variableDefinitionManager;
 	private final BuildLogger buildLogger;
+	private final VariableLogging variableLogging;
+	private final PlanLocks planLocks;
 
 	public BambooVariableManager(PlanManager planManager,
 			VariableDefinitionManager variableDefinitionManager,
 			BuildLogger buildLogger) {
+		this(planManager, variableDefinitionManager, buildLogger,
+				VariableLogging.DETAILED);
+	}
+
+	public BambooVariableManager(PlanManager planManager,
+			VariableDefinitionManager variableDefinitionManager,
+			BuildLogger buildLogger, VariableLogging variableLogging) {
+		this(planManager, variableDefinitionManager, buildLogger,
+				variableLogging, PlanLocks.getInstance());
+	}
+
+	public BambooVariableManager(PlanManager planManager,
+			VariableDefinitionManager variableDefinitionManager,
+			BuildLogger buildLogger, VariableLogging variableLogging,
+			PlanLocks planLocks) {
 		this.planManager = planManager;
 		this.variableDefinitionManager = variableDefinitionManager;
 		this.buildLogger = buildLogger;
+		this.variableLogging = variableLogging;
+		this.planLocks = planLocks;
 	}
 
-	public void addOrUpdateVariables(String topLevelPlanKey,
+	/**
+	 * Adds or updates the given variables on the plan. The plan's existing
+	 * definitions are read once and compared with the variables; only added
+	 * or changed values are saved, each with its own call, as Bamboo 5.15's
+	 * {@link VariableDefinitionManager} has no bulk save. Concurrent updates
+	 * of the same plan, from local tasks or from remote agents, are
+	 * serialized so that no two of them insert the same key.
+	 * 
+	 * @return the changes that were made
+	 */
+	public PlanVariableDiff addOrUpdateVariables(String topLevelPlanKey,
+			List<Variable> variables) {
+		Lock lock = planLocks.get(topLevelPlanKey);
+		lock.lock();
+		try {
+			return doAddOrUpdateVariables(topLevelPlanKey, variables);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private PlanVariableDiff doAddOrUpdateVariables(String topLevelPlanKey,
 			List<Variable> variables) {
 		Plan plan = planManager.getPlanByKey(PlanKeys
 				.getPlanKey(topLevelPlanKey));
 
-		List<VariableDefinition> planVariables = getVariablesForPlan(topLevelPlanKey);
-		for (Variable variable : variables) {
-			VariableDefinition variableDefinition = null;
-			String name = variable.getName();
-			String value = variable.getValue();
-			for (VariableDefinition v : planVariables) {
-				if (v.getKey().equals(name)) {
-					variableDefinition = v;
+		PlanVariableDiff diff = new PlanVariableDiff(
+				variableDefinitionManager.getPlanVariables(plan), variables);
+		logChanges(diff);
+		List<VariableDefinition> toSave = new ArrayList<VariableDefinition>();
+		for (Variable variable : diff.getAdded()) {
+			toSave.add(define(new VariableDefinitionImpl(), plan, variable));
+		}
+		for (Map.Entry<Variable, VariableDefinition> update : diff
+				.getUpdated().entrySet()) {
+			toSave.add(define(update.getValue(), plan, update.getKey()));
+		}
+		for (VariableDefinition variableDefinition : toSave) {
+			variableDefinitionManager
+					.saveVariableDefinition(variableDefinition);
+		}
+		ExtractorMetrics.getInstance().variablesWritten(toSave.size());
+		return diff;
+	}
+
+	/**
+	 * Must run before the definitions are updated, the old values are
+	 * logged.
+	 */
+	private void logChanges(PlanVariableDiff diff) {
+		boolean detailed = variableLogging == VariableLogging.DETAILED;
+		boolean debug = LOG.isDebugEnabled();
+		VariableTable table = null;
+		if (variableLogging == VariableLogging.TABLE && diff.hasChanges()) {
+			table = new VariableTable("Plan variables: " + diff, "Change",
+					"Variable", "Old value", "New value");
+		}
+		if (detailed || debug || table != null) {
+			for (Variable variable : diff.getAdded()) {
+				String name = variable.getName();
+				String value = variable.getValue();
+				if (detailed) {
+					buildLogger.addBuildLogEntry("Adding Plan variable "
+							+ name + ":" + value);
+				} else if (debug) {
+					LOG.debug("Adding Plan variable " + name + ":" + value);
+				}
+				if (table != null) {
+					table.addRow("added", name, "", value);
 				}
 			}
-
-			if (variableDefinition == null) {
-				variableDefinition = new VariableDefinitionImpl();
-				buildLogger.addBuildLogEntry("Adding Plan variable " + name
-						+ ":" + value);
-			} else {
-				buildLogger.addBuildLogEntry("Updaing Plan variable from "
-						+ name + ":" + variableDefinition.getValue() + " to "
-						+ name + ":" + value);
+			for (Map.Entry<Variable, VariableDefinition> update : diff
+					.getUpdated().entrySet()) {
+				String name = update.getKey().getName();
+				String oldValue = update.getValue().getValue();
+				String value = update.getKey().getValue();
+				if (detailed) {
+					buildLogger.addBuildLogEntry("Updating Plan variable from "
+							+ name + ":" + oldValue + " to " + name + ":"
+							+ value);
+				} else if (debug) {
+					LOG.debug("Updating Plan variable from " + name + ":"
+							+ oldValue + " to " + name + ":" + value);
+				}
+				if (table != null) {
+					table.addRow("updated", name, oldValue, value);
+				}
 			}
-			variableDefinition.setPlan(plan);
-			variableDefinition.setVariableType(VariableType.PLAN);
-			variableDefinition.setKey(name);
-			variableDefinition.setValue(value);
-
-			variableDefinitionManager
-					.saveVariableDefinition(variableDefinition);
+		}
+		if (table != null) {
+			buildLogger.addBuildLogEntry(table.toString());
+		} else {
+			buildLogger.addBuildLogEntry("Plan variables: " + diff);
 		}
 	}
 
-	private List<VariableDefinition> getVariablesForPlan(final String planKey) {
-		Plan planByKey = planManager.getPlanByKey(PlanKeys.getPlanKey(planKey));
-		return variableDefinitionManager.getPlanVariables(planByKey);
+	private VariableDefinition define(VariableDefinition variableDefinition,
+			Plan plan, Variable variable) {
+		variableDefinition.setPlan(plan);
+		variableDefinition.setVariableType(VariableType.PLAN);
+		variableDefinition.setKey(variable.getName());
+		variableDefinition.setValue(variable.getValue());
+		return variableDefinition;
 	}
 }
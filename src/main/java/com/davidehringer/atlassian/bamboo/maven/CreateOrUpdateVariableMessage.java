@@ -15,6 +15,12 @@
  */
 package com.davidehringer.atlassian.bamboo.maven;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
+import java.util.ArrayList;
 import java.util.List;
 
 import com.atlassian.bamboo.build.BuildLoggerManager;
@@ -26,19 +32,47 @@ import com.atlassian.bamboo.v2.build.agent.messages.AbstractBambooAgentMessage;
 import com.atlassian.bamboo.variable.VariableDefinitionManager;
 
 /**
+ * Sent by a remote agent so the server updates plan variables.
+ * <p>
+ * The serialized form stays readable by and from plugin versions that sent
+ * the variables as a plain list. The serialVersionUID is the one computed
+ * for the first version of this class and the list is still a serialized
+ * field. The variables are written twice: as that list, for servers that
+ * still run an older version, and with {@link VariablesCodec} to an extra
+ * field that older readers skip. A reader uses the encoded field unless it
+ * is missing or uses a format this version can't read, then the list.
+ * 
  * @author David Ehringer
  */
 public class CreateOrUpdateVariableMessage extends AbstractBambooAgentMessage {
 
-	private final String topLevelPlanKey;
-	private final String buildResultKey;
-	private final List<Variable> variables;
+	private static final long serialVersionUID = -4275223137577532769L;
+
+	private static final ObjectStreamField[] serialPersistentFields = {
+			new ObjectStreamField("topLevelPlanKey", String.class),
+			new ObjectStreamField("buildResultKey", String.class),
+			new ObjectStreamField("variables", List.class),
+			new ObjectStreamField("variableLogging", String.class),
+			new ObjectStreamField("encodedVariables", byte[].class) };
+
+	private String topLevelPlanKey;
+	private String buildResultKey;
+	private List<Variable> variables;
+	private VariableLogging variableLogging;
 
 	public CreateOrUpdateVariableMessage(String topLevelPlanKey,
 			String buildResultKey, List<Variable> variables) {
+		this(topLevelPlanKey, buildResultKey, variables,
+				VariableLogging.DETAILED);
+	}
+
+	public CreateOrUpdateVariableMessage(String topLevelPlanKey,
+			String buildResultKey, List<Variable> variables,
+			VariableLogging variableLogging) {
 		this.topLevelPlanKey = topLevelPlanKey;
 		this.buildResultKey = buildResultKey;
 		this.variables = variables;
+		this.variableLogging = variableLogging;
 	}
 
 	@Override
@@ -54,11 +88,76 @@ public class CreateOrUpdateVariableMessage extends AbstractBambooAgentMessage {
 		BuildLogger buildLogger = buildLoggerManager
 				.getLogger(planResultKey);
 
-		BambooVariableManager manager = new BambooVariableManager(planManager,
-				variableDefinitionManager, buildLogger);
-		manager.addOrUpdateVariables(topLevelPlanKey, variables);
+		// Jobs of the same plan often finish together; let the queue merge
+		// the updates that wait for each other into one write.
+		PlanVariableUpdateQueue.getInstance().update(topLevelPlanKey,
+				variables, planManager, variableDefinitionManager, buildLogger,
+				getVariableLogging());
 
 		return null;
 	}
 
+	List<Variable> getVariables() {
+		return variables;
+	}
+
+	/**
+	 * Messages from agents running an older version of the plugin carry no
+	 * logging preference.
+	 */
+	VariableLogging getVariableLogging() {
+		return variableLogging == null ? VariableLogging.DETAILED
+				: variableLogging;
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("topLevelPlanKey", topLevelPlanKey);
+		fields.put("buildResultKey", buildResultKey);
+		// By name, so that a reader without the option never has to load
+		// the enum
+		fields.put("variableLogging",
+				variableLogging == null ? null : variableLogging.name());
+		// Readable by servers that don't know the encoding yet
+		fields.put("variables", variables == null ? null
+				: new ArrayList<Variable>(variables));
+		fields.put("encodedVariables", VariablesCodec.encode(variables));
+		out.writeFields();
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream in) throws IOException,
+			ClassNotFoundException {
+		ObjectInputStream.GetField fields = in.readFields();
+		topLevelPlanKey = (String) fields.get("topLevelPlanKey", null);
+		buildResultKey = (String) fields.get("buildResultKey", null);
+		variableLogging = loggingNamed((String) fields.get("variableLogging",
+				null));
+		byte[] encoded = (byte[]) fields.get("encodedVariables", null);
+		List<Variable> list = (List<Variable>) fields.get("variables", null);
+		if (encoded != null
+				&& (list == null || VariablesCodec.isReadable(encoded))) {
+			variables = VariablesCodec.decode(encoded);
+		} else if (list != null) {
+			variables = new ArrayList<Variable>(list);
+		} else {
+			throw new InvalidObjectException("Variables message without variables");
+		}
+	}
+
+	/**
+	 * A logging option added by a newer version of the plugin is read as the
+	 * default.
+	 */
+	private static VariableLogging loggingNamed(String name) {
+		if (name == null) {
+			return null;
+		}
+		try {
+			return VariableLogging.valueOf(name);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
 }
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.atlassian.bamboo.maven;
+
+/**
+ * The file format extracted variables are exported to, so that later tasks,
+ * e.g. scripts or Docker builds, can read them without extracting them again.
+ * 
+ * @author David Ehringer
+ */
+public enum ExportFormat {
+
+    /**
+     * Variables are only set in Bamboo. The behaviour of tasks configured
+     * before this option existed.
+     */
+    NONE(null),
+
+    /**
+     * A Java properties file.
+     */
+    PROPERTIES("pom-values.properties"),
+
+    /**
+     * A JSON object of variable names and values.
+     */
+    JSON("pom-values.json"),
+
+    /**
+     * <code>export</code> statements that a shell can <code>source</code>.
+     * Names are converted the way Bamboo converts variables to environment
+     * variables, e.g. <code>maven.version</code> becomes
+     * <code>maven_version</code>.
+     */
+    ENV("pom-values.env");
+
+    private final String defaultFileName;
+
+    private ExportFormat(String defaultFileName) {
+        this.defaultFileName = defaultFileName;
+    }
+
+    /**
+     * @return the file, relative to the working directory, variables are
+     *         exported to unless another one is configured
+     */
+    public String getDefaultFileName() {
+        return defaultFileName;
+    }
+}
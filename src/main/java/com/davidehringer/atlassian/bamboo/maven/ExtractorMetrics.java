@@ -0,0 +1,139 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.atlassian.bamboo.maven;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.davidehringer.bamboo.maven.extractor.PomValuesCache;
+import com.davidehringer.bamboo.maven.extractor.StringDeduplicator;
+
+/**
+ * Counters and accumulated phase timings of the extractor in this JVM. On an
+ * agent they cover task executions; on the server they also include plan
+ * variables written on behalf of remote agents. While the plugin is enabled,
+ * the {@link ExtractorMetricsExporter} exposes the instance through JMX as
+ * {@value #OBJECT_NAME}.
+ * 
+ * @author David Ehringer
+ */
+public class ExtractorMetrics implements ExtractorMetricsMBean {
+
+    public static final String OBJECT_NAME = "com.davidehringer.bamboo.maven:type=PomValueExtractor";
+
+    private static final ExtractorMetrics INSTANCE = new ExtractorMetrics();
+
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong parseFailures = new AtomicLong();
+    private final AtomicLong fingerprintHits = new AtomicLong();
+    private final AtomicLong variablesWritten = new AtomicLong();
+    private final AtomicLong parseMillis = new AtomicLong();
+    private final AtomicLong extractMillis = new AtomicLong();
+    private final AtomicLong interpolateMillis = new AtomicLong();
+    private final AtomicLong persistMillis = new AtomicLong();
+    private volatile String lastExecution = "";
+
+    ExtractorMetrics() {
+    }
+
+    public static ExtractorMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    void executed(PhaseTimer timer) {
+        executions.incrementAndGet();
+        parseMillis.addAndGet(timer.getMillis(PhaseTimer.PARSE));
+        extractMillis.addAndGet(timer.getMillis(PhaseTimer.EXTRACT));
+        interpolateMillis.addAndGet(timer.getMillis(PhaseTimer.INTERPOLATE));
+        persistMillis.addAndGet(timer.getMillis(PhaseTimer.PERSIST));
+        lastExecution = timer.toString();
+    }
+
+    void parseFailed() {
+        parseFailures.incrementAndGet();
+    }
+
+    void fingerprintHit() {
+        fingerprintHits.incrementAndGet();
+    }
+
+    void variablesWritten(int count) {
+        variablesWritten.addAndGet(count);
+    }
+
+    public long getExecutions() {
+        return executions.get();
+    }
+
+    public long getParseFailures() {
+        return parseFailures.get();
+    }
+
+    public long getCacheHits() {
+        return PomValuesCache.getInstance().getHits();
+    }
+
+    public long getCacheMisses() {
+        return PomValuesCache.getInstance().getMisses();
+    }
+
+    public long getFingerprintHits() {
+        return fingerprintHits.get();
+    }
+
+    public long getDeduplicatedStrings() {
+        return StringDeduplicator.getInstance().getDuplicates();
+    }
+
+    public long getDeduplicatedBytes() {
+        return StringDeduplicator.getInstance().getBytesSaved();
+    }
+
+    public long getVariablesWritten() {
+        return variablesWritten.get();
+    }
+
+    public long getParseMillis() {
+        return parseMillis.get();
+    }
+
+    public long getExtractMillis() {
+        return extractMillis.get();
+    }
+
+    public long getInterpolateMillis() {
+        return interpolateMillis.get();
+    }
+
+    public long getPersistMillis() {
+        return persistMillis.get();
+    }
+
+    public String getLastExecution() {
+        return lastExecution;
+    }
+
+    public void reset() {
+        executions.set(0);
+        parseFailures.set(0);
+        fingerprintHits.set(0);
+        variablesWritten.set(0);
+        parseMillis.set(0);
+        extractMillis.set(0);
+        interpolateMillis.set(0);
+        persistMillis.set(0);
+        lastExecution = "";
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.atlassian.bamboo.maven;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+/**
+ * Registers the {@link ExtractorMetrics} with the platform MBean server as
+ * {@value ExtractorMetrics#OBJECT_NAME} while the plugin is enabled. It is a
+ * component of the plugin, so disabling, upgrading or uninstalling the plugin
+ * unregisters the MBean and the MBean server stops holding on to the plugin's
+ * classes.
+ * 
+ * @author David Ehringer
+ */
+public class ExtractorMetricsExporter implements InitializingBean, DisposableBean {
+
+    private static final Log LOG = LogFactory.getLog(ExtractorMetricsExporter.class);
+
+    private final ExtractorMetrics metrics;
+    private ObjectName registeredName;
+
+    public ExtractorMetricsExporter() {
+        this(ExtractorMetrics.getInstance());
+    }
+
+    ExtractorMetricsExporter(ExtractorMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public synchronized void afterPropertiesSet() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(ExtractorMetrics.OBJECT_NAME);
+            // Left behind by a predecessor that was not shut down cleanly
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(metrics, name);
+            registeredName = name;
+        } catch (JMException e) {
+            LOG.warn("Unable to register " + ExtractorMetrics.OBJECT_NAME + " with JMX", e);
+        } catch (SecurityException e) {
+            LOG.warn("Unable to register " + ExtractorMetrics.OBJECT_NAME + " with JMX", e);
+        }
+    }
+
+    public synchronized void destroy() {
+        if (registeredName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+        } catch (JMException e) {
+            LOG.warn("Unable to unregister " + ExtractorMetrics.OBJECT_NAME + " from JMX", e);
+        } catch (SecurityException e) {
+            LOG.warn("Unable to unregister " + ExtractorMetrics.OBJECT_NAME + " from JMX", e);
+        }
+        registeredName = null;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.atlassian.bamboo.maven;
+
+/**
+ * JMX view of {@link ExtractorMetrics}.
+ * 
+ * @author David Ehringer
+ */
+public interface ExtractorMetricsMBean {
+
+    long getExecutions();
+
+    long getParseFailures();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    long getFingerprintHits();
+
+    long getDeduplicatedStrings();
+
+    long getDeduplicatedBytes();
+
+    long getVariablesWritten();
+
+    long getParseMillis();
+
+    long getExtractMillis();
+
+    long getInterpolateMillis();
+
+    long getPersistMillis();
+
+    String getLastExecution();
+
+    void reset();
+}
@@ -21,7 +21,11 @@ import static com.davidehringer.atlassian.bamboo.maven.VariableType.RESULT;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.atlassian.bamboo.agent.AgentType;
 import com.atlassian.bamboo.agent.bootstrap.AgentContext;
@@ -39,11 +43,22 @@ import com.atlassian.bamboo.v2.build.BuildContext;
 import com.atlassian.bamboo.v2.build.agent.remote.RemoteAgent;
 import com.atlassian.bamboo.v2.build.agent.remote.sender.BambooAgentMessageSender;
 import com.atlassian.bamboo.variable.VariableContext;
+import com.atlassian.bamboo.variable.VariableDefinitionContext;
 import com.atlassian.bamboo.variable.VariableDefinitionManager;
 import com.atlassian.spring.container.ContainerManager;
+import com.davidehringer.bamboo.maven.extractor.CyclicReferenceException;
+import com.davidehringer.bamboo.maven.extractor.ExtractionOptions;
+import com.davidehringer.bamboo.maven.extractor.FingerprintStore;
 import com.davidehringer.bamboo.maven.extractor.InvalidPomException;
+import com.davidehringer.bamboo.maven.extractor.ModuleValues;
+import com.davidehringer.bamboo.maven.extractor.PomParsingEngine;
 import com.davidehringer.bamboo.maven.extractor.PomValueExtractor;
-import com.davidehringer.bamboo.maven.extractor.PomValueExtractorMavenModel;
+import com.davidehringer.bamboo.maven.extractor.PomValueExtractorCachedValues;
+import com.davidehringer.bamboo.maven.extractor.PomValueExtractorFactory;
+import com.davidehringer.bamboo.maven.extractor.PomValueExtractorInterpolating;
+import com.davidehringer.bamboo.maven.extractor.PomValuesCache;
+import com.davidehringer.bamboo.maven.extractor.ReactorExtractor;
+import com.davidehringer.bamboo.maven.extractor.StringDeduplicator;
 
 /**
  * @author David Ehringer
@@ -51,6 +66,9 @@ import com.davidehringer.bamboo.maven.extractor.PomValueExtractorMavenModel;
 public class MavenVariableTask implements CommonTaskType {
 
     private static final String DEFAULT_POM = "pom.xml";
+    private static final String FINGERPRINT_DIR = "_pom-extractor";
+
+    private final ExtractorMetrics metrics = ExtractorMetrics.getInstance();
 
     // Stuff for creating Plan variables
     private PlanManager planManager;
@@ -84,23 +102,119 @@ public class MavenVariableTask implements CommonTaskType {
 
         File pomFile = getPomFile(config, buildLogger);
 
-        PomValueExtractor extractor = null;
+        PhaseTimer timer = new PhaseTimer();
+        List<Variable> variables;
         try {
-            extractor = new PomValueExtractorMavenModel(pomFile);
+            timer.begin(PhaseTimer.PARSE);
+            if (config.isReactorScan()) {
+                variables = extractReactorVariables(config, pomFile, timer);
+            } else {
+                FingerprintStore fingerprints = getFingerprintStore(config);
+                PomValueExtractorFactory extractorFactory = new PomValueExtractorFactory(
+                        PomValuesCache.getInstance());
+                PomValueExtractor extractor = extractorFactory.create(pomFile,
+                        VariablesExtractor.getElementsToExtract(config), createExtractionOptions(config),
+                        fingerprints);
+                if (fingerprints != null && fingerprints.getHits() > 0) {
+                    metrics.fingerprintHit();
+                    buildLogger.addBuildLogEntry("POM files unchanged since the last build, reusing values from "
+                            + fingerprints.getStoreFile().getAbsolutePath());
+                }
+                // Agent-wide totals are left to the JMX metrics
+                if (extractorFactory.getCacheHits() > 0) {
+                    buildLogger.addBuildLogEntry("POM value cache hit, reusing values extracted earlier on this agent");
+                } else if (extractorFactory.getCacheMisses() > 0) {
+                    buildLogger.addBuildLogEntry("POM value cache miss, values extracted from the POM");
+                }
+                timer.begin(PhaseTimer.EXTRACT);
+                variables = extractVariables(config, extractor);
+                if (extractor instanceof PomValueExtractorInterpolating) {
+                    timer.end();
+                    timer.move(PhaseTimer.EXTRACT, PhaseTimer.INTERPOLATE,
+                            ((PomValueExtractorInterpolating) extractor).getInterpolationNanos());
+                }
+            }
         } catch (FileNotFoundException e) {
+            metrics.parseFailed();
             buildLogger.addErrorLogEntry("POM file not found at " + pomFile.getAbsolutePath(), e);
             return TaskResultBuilder.newBuilder(taskContext).failed().build();
+        } catch (CyclicReferenceException e) {
+            metrics.parseFailed();
+            buildLogger.addErrorLogEntry("Unable to interpolate POM values, these expressions refer to each other: "
+                    + e.getChain());
+            return TaskResultBuilder.newBuilder(taskContext).failed().build();
         } catch (InvalidPomException e) {
+            metrics.parseFailed();
             buildLogger.addErrorLogEntry("Unable to read POM file.", e);
             return TaskResultBuilder.newBuilder(taskContext).failed().build();
         }
-
-        List<Variable> variables = extractVariables(config, extractor);
+        logVariables(variables, config);
+        timer.begin(PhaseTimer.PERSIST);
         saveOrUpdateVariables(variables, config);
+        if (config.getExportFormat() != ExportFormat.NONE) {
+            timer.begin(PhaseTimer.EXPORT);
+            File exportFile = config.getExportFile();
+            try {
+                VariablesFileWriter.write(variables, config.getExportFormat(), exportFile);
+                buildLogger.addBuildLogEntry("Exported " + variables.size() + " variables to "
+                        + exportFile.getAbsolutePath());
+            } catch (IOException e) {
+                buildLogger.addErrorLogEntry("Unable to export variables to " + exportFile.getAbsolutePath(), e);
+                return TaskResultBuilder.newBuilder(taskContext).failed().build();
+            } catch (IllegalArgumentException e) {
+                buildLogger.addErrorLogEntry("Unable to export variables to " + exportFile.getAbsolutePath() + ": "
+                        + e.getMessage());
+                return TaskResultBuilder.newBuilder(taskContext).failed().build();
+            }
+        }
+        timer.end();
+
+        metrics.executed(timer);
+        buildLogger.addBuildLogEntry("POM value extraction took " + timer);
 
         return TaskResultBuilder.newBuilder(taskContext).success().build();
     }
 
+    /**
+     * One store per build working directory, the root directory of the task
+     * context, whatever working subdirectory the task itself uses. The store
+     * is written to a sibling of that directory, never inside it. A checkout
+     * at or below the working directory therefore never sees it. A repository
+     * checked out elsewhere is not affected.
+     */
+    private FingerprintStore getFingerprintStore(TaskConfiguration config) {
+        File buildDir = config.getBaseDir();
+        if (config.isAlwaysParse() || buildDir == null || buildDir.getAbsoluteFile().getParentFile() == null) {
+            return null;
+        }
+        File storeDir = new File(buildDir.getAbsoluteFile().getParentFile(), FINGERPRINT_DIR);
+        return new FingerprintStore(new File(storeDir, buildDir.getName() + ".properties"));
+    }
+
+    private ExtractionOptions createExtractionOptions(TaskConfiguration config) {
+        ExtractionOptions options = new ExtractionOptions();
+        options.setEffectiveModel(config.isResolveParents());
+        options.setInterpolate(config.isInterpolate());
+        options.setLazyModel(config.isLazyModel());
+        if (config.isInterpolate()) {
+            options.setExternalVariables(getExternalVariables(config));
+        }
+        return options;
+    }
+
+    private Map<String, String> getExternalVariables(TaskConfiguration config) {
+        Map<String, String> variables = new HashMap<String, String>();
+        for (Map.Entry<String, String> env : System.getenv().entrySet()) {
+            variables.put("env." + env.getKey(), env.getValue());
+        }
+        VariableContext variableContext = config.getTaskContext().getCommonContext().getVariableContext();
+        for (VariableDefinitionContext variable : variableContext.getEffectiveVariables().values()) {
+            variables.put(variable.getKey(), variable.getValue());
+            variables.put("bamboo." + variable.getKey(), variable.getValue());
+        }
+        return variables;
+    }
+
     private void validateVariableType(CommonTaskContext taskContext, TaskConfiguration config) throws TaskException {
         if (config.areVariablesOfType(PLAN) && !(taskContext instanceof TaskContext)) {
             throw new TaskException("Plan variables can only be set for Build Plans.");
@@ -112,6 +226,54 @@ public class MavenVariableTask implements CommonTaskType {
         return variablesExtractor.extractVariables(config);
     }
 
+    private List<Variable> extractReactorVariables(TaskConfiguration config, File pomFile, PhaseTimer timer)
+            throws FileNotFoundException {
+        PomParsingEngine engine = new PomParsingEngine();
+        if (config.getParserThreads() > 0) {
+            engine = new PomParsingEngine(config.getParserThreads());
+        }
+        StringDeduplicator deduplicator = StringDeduplicator.getInstance();
+        long duplicates = deduplicator.getDuplicates();
+        long bytesSaved = deduplicator.getBytesSaved();
+        List<ModuleValues> modules = new ReactorExtractor(engine).extract(pomFile,
+                VariablesExtractor.getElementsToExtract(config), createExtractionOptions(config));
+        config.getBuildLogger().addBuildLogEntry("Extracted values from " + modules.size()
+                + " reactor modules using " + engine.getParallelism() + " parser threads");
+        // Other tasks parsing at the same time may add to the counts
+        config.getBuildLogger().addBuildLogEntry("Shared " + (deduplicator.getDuplicates() - duplicates)
+                + " repeated strings between the module models, saving about "
+                + (deduplicator.getBytesSaved() - bytesSaved) / 1024 + " KB of heap");
+        timer.begin(PhaseTimer.EXTRACT);
+        List<Variable> variables = new ArrayList<Variable>();
+        for (ModuleValues module : modules) {
+            PomValueExtractor extractor = new PomValueExtractorCachedValues(module.getValues());
+            variables.addAll(new VariablesExtractor(extractor, module.getName()).extractVariables(config));
+        }
+        return variables;
+    }
+
+    /**
+     * Unless every variable was already logged on its own, logs all of them
+     * in one table or one line.
+     */
+    private void logVariables(List<Variable> variables, TaskConfiguration config) {
+        VariableLogging logging = config.getVariableLogging();
+        if (logging == VariableLogging.DETAILED) {
+            return;
+        }
+        String title = "Setting " + variables.size() + " " + config.getVariableType() + " variables"
+                + (config.isStripSnaphost() ? " ('-SNAPSHOT' stripped from versions)" : "");
+        if (logging == VariableLogging.TABLE) {
+            VariableTable table = new VariableTable(title, "Variable", "Value");
+            for (Variable variable : variables) {
+                table.addRow(variable.getName(), variable.getValue());
+            }
+            config.getBuildLogger().addBuildLogEntry(table.toString());
+        } else {
+            config.getBuildLogger().addBuildLogEntry(title);
+        }
+    }
+
     private void saveOrUpdateVariables(List<Variable> variables, TaskConfiguration config) {
         if (config.areVariablesOfType(PLAN)) {
             saveAsPlanVariables(variables, config);
@@ -134,6 +296,7 @@ public class MavenVariableTask implements CommonTaskType {
 		    	throw new IllegalArgumentException("Unknown variable type '" + config.getVariableType() + "'");
 		    }
 		}
+		metrics.variablesWritten(variables.size());
 	}
 
 	private void saveAsPlanVariables(List<Variable> variables,
@@ -162,10 +325,10 @@ public class MavenVariableTask implements CommonTaskType {
 		                .getComponent("bambooAgentMessageSender");
 		    }
 		    bambooAgentMessageSender.send(new CreateOrUpdateVariableMessage(topLevelPlanKey, buildResultKey,
-		            variables));
+		            variables, config.getVariableLogging()));
 		} else {
 		    BambooVariableManager manager = new BambooVariableManager(planManager, variableDefinitionManager,
-		            config.getBuildLogger());
+		            config.getBuildLogger(), config.getVariableLogging());
 		    manager.addOrUpdateVariables(topLevelPlanKey, variables);
 		}
 	}
@@ -30,7 +30,9 @@ import static com.davidehringer.atlassian.bamboo.maven.TaskConfiguration.VARIABL
 import static com.davidehringer.atlassian.bamboo.maven.TaskConfiguration.VARIABLE_TYPE_PLAN;
 import static com.davidehringer.atlassian.bamboo.maven.TaskConfiguration.VARIABLE_TYPE_RESULT;
 
+import java.io.File;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import org.apache.commons.lang.StringUtils;
@@ -56,7 +58,9 @@ public class MavenVariableTaskConfigurator extends AbstractTaskConfigurator {
     private static final Log LOG = LogFactory.getLog(MavenVariableTaskConfigurator.class);
 
     private static final List<String> FIELDS_TO_COPY = ImmutableList.of(PROJECT_FILE, EXTRACT_MODE, VARIABLE_TYPE,
-            PREFIX_OPTION, PREFIX_OPTION_CUSTOM_VALUE, CUSTOM_VARIABLE_NAME, CUSTOM_ELEMENT, STRIP_SNAPSHOT);
+            PREFIX_OPTION, PREFIX_OPTION_CUSTOM_VALUE, CUSTOM_VARIABLE_NAME, CUSTOM_ELEMENT, CUSTOM_MAPPINGS, STRIP_SNAPSHOT,
+            RESOLVE_PARENTS, INTERPOLATE, LAZY_MODEL, ALWAYS_PARSE, REACTOR_SCAN, PARSER_THREADS, VARIABLE_LOGGING,
+            EXPORT_FORMAT, EXPORT_FILE);
 
     private TextProvider textProvider;
     
@@ -80,6 +84,8 @@ public class MavenVariableTaskConfigurator extends AbstractTaskConfigurator {
         context.put(EXTRACT_MODE, EXTRACT_MODE_GAV);
         context.put(VARIABLE_TYPE, VARIABLE_TYPE_RESULT);
         context.put(PREFIX_OPTION, PREFIX_OPTION_DEFAULT);
+        context.put(VARIABLE_LOGGING, VariableLogging.TABLE.name());
+        context.put(EXPORT_FORMAT, ExportFormat.NONE.name());
         populateContextForAll(context);
     }
 
@@ -111,6 +117,20 @@ public class MavenVariableTaskConfigurator extends AbstractTaskConfigurator {
         variableTypeOptions.put(VARIABLE_TYPE_PLAN,
                 textProvider.getText("maven.extractor.config.option.variableType.plan"));
         context.put("variableTypeOptions", variableTypeOptions);
+
+        Map<String, String> variableLoggingOptions = Maps.newLinkedHashMap();
+        for (VariableLogging logging : VariableLogging.values()) {
+            String key = "maven.extractor.config.option.variableLogging." + logging.name().toLowerCase(Locale.ENGLISH);
+            variableLoggingOptions.put(logging.name(), textProvider.getText(key));
+        }
+        context.put("variableLoggingOptions", variableLoggingOptions);
+
+        Map<String, String> exportFormatOptions = Maps.newLinkedHashMap();
+        for (ExportFormat format : ExportFormat.values()) {
+            String key = "maven.extractor.config.option.exportFormat." + format.name().toLowerCase(Locale.ENGLISH);
+            exportFormatOptions.put(format.name(), textProvider.getText(key));
+        }
+        context.put("exportFormatOptions", exportFormatOptions);
     }
 
     @Override
@@ -128,14 +148,34 @@ public class MavenVariableTaskConfigurator extends AbstractTaskConfigurator {
         if (EXTRACT_MODE_CUSTOM.equals(gavOrCustom)) {
             String variableName = params.getString(CUSTOM_VARIABLE_NAME);
             String element = params.getString(CUSTOM_ELEMENT);
-            if (StringUtils.isEmpty(variableName)) {
+            String mappings = params.getString(CUSTOM_MAPPINGS);
+            // The single variable/element pair is optional once further
+            // mappings are given
+            boolean pairRequired = TaskConfiguration.parseCustomMappings(mappings).isEmpty()
+                    || !StringUtils.isEmpty(variableName) || !StringUtils.isEmpty(element);
+            if (pairRequired && StringUtils.isEmpty(variableName)) {
                 errorCollection.addError(CUSTOM_VARIABLE_NAME,
                         textProvider.getText("maven.extractor.config.custom.variable.name.error"));
             }
-            if (StringUtils.isEmpty(element)) {
+            if (pairRequired && StringUtils.isEmpty(element)) {
                 errorCollection.addError(CUSTOM_ELEMENT,
                         textProvider.getText("maven.extractor.config.custom.element.error"));
             }
+            String invalidMapping = TaskConfiguration.findInvalidMapping(mappings);
+            if (invalidMapping != null) {
+                errorCollection.addError(CUSTOM_MAPPINGS,
+                        textProvider.getText("maven.extractor.config.custom.mappings.error") + " " + invalidMapping);
+            }
+        }
+        String parserThreads = params.getString(PARSER_THREADS);
+        if (!StringUtils.isEmpty(parserThreads) && TaskConfiguration.parsePositiveInt(parserThreads) < 1) {
+            errorCollection.addError(PARSER_THREADS,
+                    textProvider.getText("maven.extractor.config.pom.parserThreads.error"));
+        }
+        String exportFile = params.getString(EXPORT_FILE);
+        if (!ExportFormat.NONE.name().equals(params.getString(EXPORT_FORMAT)) && !StringUtils.isEmpty(exportFile)
+                && new File(exportFile.trim()).isAbsolute()) {
+            errorCollection.addError(EXPORT_FILE, textProvider.getText("maven.extractor.config.exportFile.error"));
         }
         if (LOG.isDebugEnabled()) {
             if (errorCollection.hasAnyErrors()) {
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.atlassian.bamboo.maven;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time spent in the phases of one task execution. Phases are
+ * reported in the order they were first started.
+ * 
+ * @author David Ehringer
+ */
+class PhaseTimer {
+
+    static final String PARSE = "parse";
+    static final String EXTRACT = "extract";
+    static final String INTERPOLATE = "interpolate";
+    static final String PERSIST = "persist";
+    static final String EXPORT = "export";
+
+    private final Map<String, Long> nanos = new LinkedHashMap<String, Long>();
+    private String current;
+    private long started;
+
+    /**
+     * Starts timing a phase, ending the current one if there is one.
+     */
+    void begin(String phase) {
+        end();
+        current = phase;
+        started = System.nanoTime();
+    }
+
+    void end() {
+        if (current != null) {
+            add(current, System.nanoTime() - started);
+            current = null;
+        }
+    }
+
+    /**
+     * Moves time already counted for one phase to another, e.g. the part of
+     * extraction that was spent interpolating.
+     */
+    void move(String from, String to, long amount) {
+        if (amount > 0) {
+            add(from, -amount);
+            add(to, amount);
+        }
+    }
+
+    long getMillis(String phase) {
+        Long value = nanos.get(phase);
+        return value == null ? 0 : TimeUnit.NANOSECONDS.toMillis(value);
+    }
+
+    long getTotalMillis() {
+        long total = 0;
+        for (Long value : nanos.values()) {
+            total += value;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(total);
+    }
+
+    private void add(String phase, long amount) {
+        Long value = nanos.get(phase);
+        nanos.put(phase, (value == null ? 0 : value) + amount);
+    }
+
+    /**
+     * @return e.g. <code>12 ms (parse 9 ms, extract 1 ms, persist 2 ms)</code>
+     */
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder();
+        summary.append(getTotalMillis()).append(" ms (");
+        boolean first = true;
+        for (String phase : nanos.keySet()) {
+            if (!first) {
+                summary.append(", ");
+            }
+            summary.append(phase).append(' ').append(getMillis(phase)).append(" ms");
+            first = false;
+        }
+        return summary.append(')').toString();
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.atlassian.bamboo.maven;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks striped by plan key. Updates to the variables of one
+ * plan are serialized while updates to different plans only contend when
+ * their keys happen to share a stripe.
+ * 
+ * @author David Ehringer
+ */
+public class PlanLocks {
+
+    private static final int DEFAULT_STRIPES = 64;
+
+    private static final PlanLocks INSTANCE = new PlanLocks(DEFAULT_STRIPES);
+
+    private final Lock[] locks;
+
+    /**
+     * @param stripes
+     *            the number of locks, rounded up to a power of two
+     */
+    public PlanLocks(int stripes) {
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        locks = new Lock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public static PlanLocks getInstance() {
+        return INSTANCE;
+    }
+
+    public Lock get(String planKey) {
+        int hash = planKey.hashCode();
+        // Spread the high bits so keys sharing a prefix don't cluster
+        hash ^= (hash >>> 16);
+        return locks[hash & (locks.length - 1)];
+    }
+
+    int getStripes() {
+        return locks.length;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.atlassian.bamboo.maven;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.atlassian.bamboo.variable.VariableDefinition;
+
+/**
+ * The difference between extracted variables and a plan's existing variable
+ * definitions. If a name occurs more than once among the extracted variables
+ * the last value wins.
+ * 
+ * @author David Ehringer
+ */
+public class PlanVariableDiff {
+
+    private final List<Variable> added = new ArrayList<Variable>();
+    private final Map<Variable, VariableDefinition> updated = new LinkedHashMap<Variable, VariableDefinition>();
+    private final List<Variable> unchanged = new ArrayList<Variable>();
+
+    public PlanVariableDiff(List<VariableDefinition> existing, List<Variable> variables) {
+        Map<String, VariableDefinition> index = new HashMap<String, VariableDefinition>(existing.size() * 2);
+        for (VariableDefinition definition : existing) {
+            index.put(definition.getKey(), definition);
+        }
+        Map<String, Variable> latest = new LinkedHashMap<String, Variable>();
+        for (Variable variable : variables) {
+            latest.remove(variable.getName());
+            latest.put(variable.getName(), variable);
+        }
+        for (Variable variable : latest.values()) {
+            VariableDefinition definition = index.get(variable.getName());
+            if (definition == null) {
+                added.add(variable);
+            } else if (equal(definition.getValue(), variable.getValue())) {
+                unchanged.add(variable);
+            } else {
+                updated.put(variable, definition);
+            }
+        }
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    public List<Variable> getAdded() {
+        return Collections.unmodifiableList(added);
+    }
+
+    /**
+     * @return the changed variables mapped to the definitions they update
+     */
+    public Map<Variable, VariableDefinition> getUpdated() {
+        return Collections.unmodifiableMap(updated);
+    }
+
+    public List<Variable> getUnchanged() {
+        return Collections.unmodifiableList(unchanged);
+    }
+
+    public boolean hasChanges() {
+        return !added.isEmpty() || !updated.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return added.size() + " added, " + updated.size() + " updated, " + unchanged.size() + " unchanged";
+    }
+}
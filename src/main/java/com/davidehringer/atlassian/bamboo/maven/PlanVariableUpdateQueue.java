@@ -0,0 +1,156 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.atlassian.bamboo.maven;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+
+import com.atlassian.bamboo.build.logger.BuildLogger;
+import com.atlassian.bamboo.plan.PlanManager;
+import com.atlassian.bamboo.variable.VariableDefinitionManager;
+
+/**
+ * Merges plan variable updates sent by remote agents per top level plan.
+ * Updates are applied on the thread delivering them, under the plan's
+ * {@link PlanLocks} stripe. While one update of a plan is being saved, the
+ * updates arriving for the same plan are merged, the last value winning for
+ * each variable name, and the first of them to get the lock saves them all
+ * with one write. The others find their variables already saved. Jobs of a
+ * wide stage finishing together therefore cause far fewer writes than one
+ * each, and no update is held back once its delivery returns.
+ * 
+ * @author David Ehringer
+ */
+public class PlanVariableUpdateQueue {
+
+    private static final PlanVariableUpdateQueue INSTANCE = new PlanVariableUpdateQueue(PlanLocks.getInstance());
+
+    private final PlanLocks planLocks;
+    private final Map<String, Batch> pending = new HashMap<String, Batch>();
+
+    PlanVariableUpdateQueue(PlanLocks planLocks) {
+        this.planLocks = planLocks;
+    }
+
+    public static PlanVariableUpdateQueue getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Saves the variables, together with any updates of the same plan that
+     * are waiting for the plan's lock. Returns once the variables are saved.
+     * A failure is logged to the build log of every job whose variables
+     * were part of the failed write. It is rethrown to the caller that made
+     * the write, and every other caller whose variables it held gets an
+     * IllegalStateException caused by it.
+     */
+    public void update(String topLevelPlanKey, List<Variable> variables, PlanManager planManager,
+            VariableDefinitionManager variableDefinitionManager, BuildLogger buildLogger,
+            VariableLogging variableLogging) {
+        Batch batch;
+        synchronized (pending) {
+            batch = pending.get(topLevelPlanKey);
+            if (batch == null) {
+                batch = new Batch();
+                pending.put(topLevelPlanKey, batch);
+            }
+            batch.merge(variables, buildLogger);
+        }
+        Lock lock = planLocks.get(topLevelPlanKey);
+        lock.lock();
+        try {
+            synchronized (pending) {
+                if (pending.get(topLevelPlanKey) != batch) {
+                    // Saved by whoever held the lock before us
+                    batch.checkSaved(topLevelPlanKey);
+                    return;
+                }
+                pending.remove(topLevelPlanKey);
+            }
+            batch.apply(topLevelPlanKey, new BambooVariableManager(planManager, variableDefinitionManager,
+                    buildLogger, variableLogging, planLocks), buildLogger);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getPendingPlanCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    private static class Batch {
+
+        private final Map<String, Variable> variables = new LinkedHashMap<String, Variable>();
+        private final List<BuildLogger> buildLoggers = new ArrayList<BuildLogger>();
+        // Written and read under the plan's lock
+        private RuntimeException failure;
+
+        void merge(List<Variable> update, BuildLogger buildLogger) {
+            for (Variable variable : update) {
+                variables.remove(variable.getName());
+                variables.put(variable.getName(), variable);
+            }
+            if (!buildLoggers.contains(buildLogger)) {
+                buildLoggers.add(buildLogger);
+            }
+        }
+
+        /**
+         * @param buildLogger
+         *            the log of the job making the write, which the manager
+         *            logs the changes to
+         */
+        void apply(String topLevelPlanKey, BambooVariableManager manager, BuildLogger buildLogger) {
+            int others = buildLoggers.size() - 1;
+            if (others > 0) {
+                buildLogger.addBuildLogEntry("Saving the plan variable updates of " + others
+                        + " other jobs of " + topLevelPlanKey + " together with these");
+            }
+            PlanVariableDiff diff;
+            try {
+                diff = manager.addOrUpdateVariables(topLevelPlanKey, new ArrayList<Variable>(variables.values()));
+            } catch (RuntimeException e) {
+                failure = e;
+                for (BuildLogger contributor : buildLoggers) {
+                    contributor.addErrorLogEntry("Unable to update plan variables of " + topLevelPlanKey, e);
+                }
+                throw e;
+            }
+            for (BuildLogger contributor : buildLoggers) {
+                if (contributor != buildLogger) {
+                    contributor.addBuildLogEntry("Plan variables saved together with the updates of " + others
+                            + " other jobs of " + topLevelPlanKey + ": " + diff);
+                }
+            }
+        }
+
+        /**
+         * For the callers whose variables another caller wrote.
+         */
+        void checkSaved(String topLevelPlanKey) {
+            if (failure != null) {
+                throw new IllegalStateException("Plan variables of " + topLevelPlanKey
+                        + " were not saved, the write they were merged into failed", failure);
+            }
+        }
+    }
+}
@@ -16,6 +16,9 @@
 package com.davidehringer.atlassian.bamboo.maven;
 
 import java.io.File;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.apache.commons.lang.StringUtils;
 
@@ -45,9 +48,19 @@ public class TaskConfiguration {
 	public static final String PREFIX_OPTION_CUSTOM_VALUE = "customPrefix";
 
 	public static final String PROJECT_FILE = "projectFile";
+	public static final String RESOLVE_PARENTS = "resolveParents";
+	public static final String INTERPOLATE = "interpolate";
+	public static final String LAZY_MODEL = "lazyModel";
+	public static final String ALWAYS_PARSE = "alwaysParse";
+	public static final String REACTOR_SCAN = "reactorScan";
+	public static final String PARSER_THREADS = "parserThreads";
+	public static final String VARIABLE_LOGGING = "variableLogging";
+	public static final String EXPORT_FORMAT = "exportFormat";
+	public static final String EXPORT_FILE = "exportFile";
 
 	public static final String CUSTOM_VARIABLE_NAME = "customVariableName";
 	public static final String CUSTOM_ELEMENT = "customElement";
+	public static final String CUSTOM_MAPPINGS = "customMappings";
 
 	private final String projectFile;
 	private final String customPrefix;
@@ -55,8 +68,18 @@ public class TaskConfiguration {
 	private boolean customExtract = false;
 	private String customVariableName;
 	private String customElement;
+	private final Map<String, String> customMappings = new LinkedHashMap<String, String>();
 	
 	private boolean stripSnaphost = false;
+	private boolean resolveParents = false;
+	private boolean interpolate = false;
+	private boolean lazyModel = false;
+	private boolean alwaysParse = false;
+	private boolean reactorScan = false;
+	private int parserThreads = 0;
+	private VariableLogging variableLogging = VariableLogging.DETAILED;
+	private ExportFormat exportFormat = ExportFormat.NONE;
+	private final String exportFile;
 	
 	private final VariableType variableType;
 	
@@ -75,6 +98,10 @@ public class TaskConfiguration {
 			customExtract = true;
 			customVariableName = configurationMap.get(CUSTOM_VARIABLE_NAME);
 			customElement = configurationMap.get(CUSTOM_ELEMENT);
+			if(!StringUtils.isEmpty(customVariableName) && !StringUtils.isEmpty(customElement)){
+				customMappings.put(customVariableName, customElement);
+			}
+			customMappings.putAll(parseCustomMappings(configurationMap.get(CUSTOM_MAPPINGS)));
 		}
 		
 		String selectedType = configurationMap.get(VARIABLE_TYPE);
@@ -93,8 +120,58 @@ public class TaskConfiguration {
 		if(Boolean.valueOf(configurationMap.get(STRIP_SNAPSHOT))){
 		    stripSnaphost = true;
 		}
+		if(Boolean.valueOf(configurationMap.get(RESOLVE_PARENTS))){
+		    resolveParents = true;
+		}
+		if(Boolean.valueOf(configurationMap.get(INTERPOLATE))){
+		    interpolate = true;
+		}
+		if(Boolean.valueOf(configurationMap.get(LAZY_MODEL))){
+		    lazyModel = true;
+		}
+		if(Boolean.valueOf(configurationMap.get(ALWAYS_PARSE))){
+		    alwaysParse = true;
+		}
+		if(Boolean.valueOf(configurationMap.get(REACTOR_SCAN))){
+		    reactorScan = true;
+		}
+		parserThreads = parsePositiveInt(configurationMap.get(PARSER_THREADS));
+		String logging = configurationMap.get(VARIABLE_LOGGING);
+		if(!StringUtils.isEmpty(logging)){
+		    try {
+		        variableLogging = VariableLogging.valueOf(logging);
+		    } catch (IllegalArgumentException e) {
+		        // Unknown value, keep logging every variable
+		    }
+		}
+		String format = configurationMap.get(EXPORT_FORMAT);
+		if(!StringUtils.isEmpty(format)){
+		    try {
+		        exportFormat = ExportFormat.valueOf(format);
+		    } catch (IllegalArgumentException e) {
+		        // Unknown value, don't export
+		    }
+		}
+		exportFile = configurationMap.get(EXPORT_FILE);
 	}
 	
+	public ExportFormat getExportFormat() {
+		return exportFormat;
+	}
+
+	/**
+	 * @return the file to export variables to, the configured file or the
+	 *         format's default, relative to the working directory.
+	 *         <code>null</code> if variables are not exported.
+	 */
+	public File getExportFile() {
+		if (exportFormat == ExportFormat.NONE) {
+			return null;
+		}
+		String fileName = StringUtils.isEmpty(exportFile) ? exportFormat.getDefaultFileName() : exportFile.trim();
+		return new File(getBaseDir(), fileName);
+	}
+
 	public CommonTaskContext getTaskContext(){
 		return taskContext;
 	}
@@ -143,8 +220,127 @@ public class TaskConfiguration {
 		return customElement;
 	}
 
+	/**
+	 * @return the variable names mapped to the POM elements to extract, in
+	 *         the configured order. Includes the single
+	 *         {@link #getCustomVariableName()}/{@link #getCustomElement()}
+	 *         pair, if set.
+	 */
+	public Map<String, String> getCustomMappings() {
+		return Collections.unmodifiableMap(customMappings);
+	}
+
+	/**
+	 * Parses one <code>variableName=element</code> mapping per line. Blank
+	 * lines and lines starting with <code>#</code> are ignored, as are
+	 * invalid lines (see {@link #findInvalidMapping(String)}).
+	 */
+	static Map<String, String> parseCustomMappings(String mappings) {
+		Map<String, String> result = new LinkedHashMap<String, String>();
+		if (StringUtils.isEmpty(mappings)) {
+			return result;
+		}
+		for (String line : mappings.split("\\r?\\n")) {
+			String[] mapping = parseMapping(line);
+			if (mapping != null && mapping.length == 2) {
+				result.put(mapping[0], mapping[1]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return the first line that is neither blank, a comment nor a valid
+	 *         mapping, or <code>null</code> if all lines are fine
+	 */
+	static String findInvalidMapping(String mappings) {
+		if (StringUtils.isEmpty(mappings)) {
+			return null;
+		}
+		for (String line : mappings.split("\\r?\\n")) {
+			String[] mapping = parseMapping(line);
+			if (mapping != null && mapping.length != 2) {
+				return line.trim();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return <code>null</code> for a blank or comment line, the variable name
+	 *         and element for a valid mapping, and an empty array otherwise
+	 */
+	private static String[] parseMapping(String line) {
+		String trimmed = line.trim();
+		if (trimmed.length() == 0 || trimmed.startsWith("#")) {
+			return null;
+		}
+		// Split on the first '=' only, elements may contain selectors
+		int separator = trimmed.indexOf('=');
+		if (separator < 0) {
+			return new String[0];
+		}
+		String variableName = trimmed.substring(0, separator).trim();
+		String element = trimmed.substring(separator + 1).trim();
+		if (variableName.length() == 0 || element.length() == 0) {
+			return new String[0];
+		}
+		return new String[] { variableName, element };
+	}
+
     public boolean isStripSnaphost() {
         return stripSnaphost;
     }
 
+    public boolean isResolveParents() {
+        return resolveParents;
+    }
+
+    public boolean isInterpolate() {
+        return interpolate;
+    }
+
+    public boolean isLazyModel() {
+        return lazyModel;
+    }
+
+    /**
+     * @return <code>true</code> if values extracted by an earlier build must
+     *         not be reused even though the POM files are unchanged
+     */
+    public boolean isAlwaysParse() {
+        return alwaysParse;
+    }
+
+    public boolean isReactorScan() {
+        return reactorScan;
+    }
+
+    /**
+     * @return the maximum number of POM files parsed concurrently, or 0 if
+     *         none was configured
+     */
+    public int getParserThreads() {
+        return parserThreads;
+    }
+
+    public VariableLogging getVariableLogging() {
+        return variableLogging;
+    }
+
+    /**
+     * @return the value as a positive int, or 0 if it is empty or not a
+     *         positive number
+     */
+    static int parsePositiveInt(String value) {
+        if (StringUtils.isEmpty(value)) {
+            return 0;
+        }
+        try {
+            return Math.max(Integer.parseInt(value.trim()), 0);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
 }
@@ -15,10 +15,14 @@
  */
 package com.davidehringer.atlassian.bamboo.maven;
 
+import java.io.Serializable;
+
 /**
  * @author David Ehringer
  */
-public class Variable {
+public class Variable implements Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	private final String name;
 	private final String value;
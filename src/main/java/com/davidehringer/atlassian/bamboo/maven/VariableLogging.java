@@ -0,0 +1,42 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.atlassian.bamboo.maven;
+
+/**
+ * How much the task writes to the build log about the variables it sets.
+ * Whatever is not written to the build log is available at debug level in
+ * the agent or server log.
+ * 
+ * @author David Ehringer
+ */
+public enum VariableLogging {
+
+    /**
+     * One build log line per variable. The behaviour of tasks configured
+     * before this option existed.
+     */
+    DETAILED,
+
+    /**
+     * One table listing all variables.
+     */
+    TABLE,
+
+    /**
+     * A single line with the number of variables.
+     */
+    SUMMARY
+}
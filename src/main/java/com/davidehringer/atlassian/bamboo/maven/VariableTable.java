@@ -0,0 +1,81 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.atlassian.bamboo.maven;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Renders rows of cells as a single build log entry with aligned columns.
+ * 
+ * @author David Ehringer
+ */
+class VariableTable {
+
+    private static final String SEPARATOR = "  ";
+
+    private final String title;
+    private final int columns;
+    private final List<String> cells = new ArrayList<String>();
+
+    VariableTable(String title, String... headers) {
+        this.title = title;
+        this.columns = headers.length;
+        addRow(headers);
+    }
+
+    void addRow(String... row) {
+        for (int i = 0; i < columns; i++) {
+            String cell = i < row.length ? row[i] : null;
+            cells.add(cell == null ? "" : cell);
+        }
+    }
+
+    int getRowCount() {
+        return cells.size() / columns - 1;
+    }
+
+    @Override
+    public String toString() {
+        int[] widths = new int[columns];
+        int length = title.length() + 1;
+        for (int i = 0; i < cells.size(); i++) {
+            int column = i % columns;
+            widths[column] = Math.max(widths[column], cells.get(i).length());
+        }
+        for (int width : widths) {
+            length += width + SEPARATOR.length();
+        }
+        StringBuilder table = new StringBuilder(length * (getRowCount() + 1));
+        table.append(title);
+        for (int i = 0; i < cells.size(); i++) {
+            int column = i % columns;
+            String cell = cells.get(i);
+            if (column == 0) {
+                table.append('\n').append(SEPARATOR);
+            } else {
+                table.append(SEPARATOR);
+            }
+            table.append(cell);
+            if (column < columns - 1) {
+                for (int pad = cell.length(); pad < widths[column]; pad++) {
+                    table.append(' ');
+                }
+            }
+        }
+        return table.toString();
+    }
+}
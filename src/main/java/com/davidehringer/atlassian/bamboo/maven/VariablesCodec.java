@@ -0,0 +1,196 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.atlassian.bamboo.maven;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidObjectException;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compact binary encoding of a list of variables, used when variables are
+ * sent from a remote agent to the server.
+ * <p>
+ * Layout (version 1): a version byte, a flags byte and the body, which is
+ * deflated when {@link #FLAG_DEFLATED} is set. The body is the number of
+ * variables followed by, for each variable, the number of leading
+ * characters its name shares with the previous name, the rest of the name
+ * and the value. Numbers are unsigned varints, strings are length-prefixed
+ * UTF-8 and a null value is written as length 0 with every other length
+ * shifted by one.
+ * <p>
+ * Readers accept any version from 1 on, so agents can be upgraded before
+ * the server. A later version may therefore only append data after the
+ * variables, which older readers ignore. A change older readers cannot
+ * follow must set a new flag; a reader rejects flags it does not know.
+ * 
+ * @author David Ehringer
+ */
+final class VariablesCodec {
+
+    static final int VERSION = 1;
+    static final int FLAG_DEFLATED = 1;
+
+    private static final int KNOWN_FLAGS = FLAG_DEFLATED;
+
+    /**
+     * Bodies smaller than this are sent as is, deflating them rarely pays
+     * off.
+     */
+    static final int DEFLATE_THRESHOLD = 1024;
+
+    private static final String UTF_8 = "UTF-8";
+
+    private VariablesCodec() {
+    }
+
+    static byte[] encode(List<Variable> variables) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        writeVarint(body, variables.size());
+        String previous = "";
+        for (Variable variable : variables) {
+            String name = variable.getName();
+            int shared = sharedPrefix(previous, name);
+            writeVarint(body, shared);
+            writeString(body, name.substring(shared));
+            writeString(body, variable.getValue());
+            previous = name;
+        }
+
+        int flags = 0;
+        byte[] bytes = body.toByteArray();
+        if (bytes.length >= DEFLATE_THRESHOLD) {
+            ByteArrayOutputStream deflated = new ByteArrayOutputStream(bytes.length / 4);
+            DeflaterOutputStream out = new DeflaterOutputStream(deflated);
+            out.write(bytes);
+            out.close();
+            if (deflated.size() < bytes.length) {
+                flags |= FLAG_DEFLATED;
+                bytes = deflated.toByteArray();
+            }
+        }
+        ByteArrayOutputStream message = new ByteArrayOutputStream(bytes.length + 2);
+        message.write(VERSION);
+        message.write(flags);
+        message.write(bytes);
+        return message.toByteArray();
+    }
+
+    /**
+     * Whether this version can decode the message: its version is 1 or
+     * later and it sets no flag this version does not know.
+     */
+    static boolean isReadable(byte[] message) {
+        return message.length >= 2 && (message[0] & 0xFF) >= 1 && (message[1] & ~KNOWN_FLAGS) == 0;
+    }
+
+    static List<Variable> decode(byte[] message) throws IOException {
+        if (message.length < 2) {
+            throw new InvalidObjectException("Truncated variables message");
+        }
+        if (!isReadable(message)) {
+            throw new InvalidObjectException("Unsupported variables encoding, version " + (message[0] & 0xFF)
+                    + " with flags " + Integer.toBinaryString(message[1] & 0xFF));
+        }
+        InputStream in = new ByteArrayInputStream(message, 2, message.length - 2);
+        if ((message[1] & FLAG_DEFLATED) != 0) {
+            in = new InflaterInputStream(in);
+        }
+        int count = readVarint(in);
+        List<Variable> variables = new ArrayList<Variable>(count);
+        String previous = "";
+        for (int i = 0; i < count; i++) {
+            int shared = readVarint(in);
+            if (shared > previous.length()) {
+                throw new InvalidObjectException("Corrupt variables message");
+            }
+            String name = previous.substring(0, shared) + readString(in);
+            variables.add(new Variable(name, readString(in)));
+            previous = name;
+        }
+        return variables;
+    }
+
+    private static int sharedPrefix(String a, String b) {
+        int max = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < max && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        // Never split a surrogate pair between the prefix and the suffix
+        if (i > 0 && i < b.length() && Character.isHighSurrogate(b.charAt(i - 1))) {
+            i--;
+        }
+        return i;
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) throws UnsupportedEncodingException {
+        if (value == null) {
+            writeVarint(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(UTF_8);
+        writeVarint(out, bytes.length + 1);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static String readString(InputStream in) throws IOException {
+        int length = readVarint(in);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        int read = 0;
+        while (read < bytes.length) {
+            int n = in.read(bytes, read, bytes.length - read);
+            if (n < 0) {
+                throw new EOFException("Truncated variables message");
+            }
+            read += n;
+        }
+        return new String(bytes, UTF_8);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(InputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Truncated variables message");
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new InvalidObjectException("Corrupt variables message");
+    }
+}
@@ -17,6 +17,10 @@ package com.davidehringer.atlassian.bamboo.maven;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
 import com.atlassian.bamboo.build.logger.BuildLogger;
 import com.davidehringer.bamboo.maven.extractor.PomValueExtractor;
@@ -32,31 +36,67 @@ class VariablesExtractor {
 
     private static final String DEFAULT_VARIABLE_PREFIX = "maven.";
 
+    private static final Log LOG = LogFactory.getLog(VariablesExtractor.class);
+
     private final PomValueExtractor extractor;
+    private final String module;
 
     public VariablesExtractor(PomValueExtractor extractor) {
+        this(extractor, null);
+    }
+
+    /**
+     * @param module
+     *            the name of a reactor module, see
+     *            {@link com.davidehringer.bamboo.maven.extractor.ModuleValues#getName()}.
+     *            Variable names are qualified with it, e.g.
+     *            <code>maven.module.version</code>.
+     */
+    public VariablesExtractor(PomValueExtractor extractor, String module) {
         this.extractor = extractor;
+        this.module = module;
     }
 
     public List<Variable> extractVariables(TaskConfiguration config) {
+        Map<String, String> values = extractor.getValues(getElementsToExtract(config));
         List<Variable> variables = new ArrayList<Variable>();
         if (config.isCustomExtract()) {
-            String variableName = config.getCustomVariableName();
-            String element = config.getCustomElement();
-            doExtract(element, variableName, extractor, variables, config);
+            for (Map.Entry<String, String> mapping : config.getCustomMappings().entrySet()) {
+                doExtract(mapping.getValue(), qualify(mapping.getKey()), values, variables, config);
+            }
         } else {
-            doExtract(POM_ELEMENT_GROUP_ID, fullVariableName(POM_ELEMENT_GROUP_ID, config), extractor, variables,
-                    config);
-            doExtract(POM_ELEMENT_ARTIFACT_ID, fullVariableName(POM_ELEMENT_ARTIFACT_ID, config), extractor, variables,
+            doExtract(POM_ELEMENT_GROUP_ID, fullVariableName(POM_ELEMENT_GROUP_ID, config), values, variables, config);
+            doExtract(POM_ELEMENT_ARTIFACT_ID, fullVariableName(POM_ELEMENT_ARTIFACT_ID, config), values, variables,
                     config);
-            extractVersion(config, variables);
+            extractVersion(config, values, variables);
         }
         return variables;
     }
 
-    private void extractVersion(TaskConfiguration config, List<Variable> variables) {
+    /**
+     * @return the POM elements {@link #extractVariables(TaskConfiguration)}
+     *         will read for the given configuration
+     */
+    static List<String> getElementsToExtract(TaskConfiguration config) {
+        List<String> elements = new ArrayList<String>();
+        if (config.isCustomExtract()) {
+            // Several variables may be set from the same element
+            for (String element : config.getCustomMappings().values()) {
+                if (!elements.contains(element)) {
+                    elements.add(element);
+                }
+            }
+        } else {
+            elements.add(POM_ELEMENT_GROUP_ID);
+            elements.add(POM_ELEMENT_ARTIFACT_ID);
+            elements.add(POM_ELEMENT_VERSION);
+        }
+        return elements;
+    }
+
+    private void extractVersion(TaskConfiguration config, Map<String, String> values, List<Variable> variables) {
         if (config.isStripSnaphost()) {
-            String value = extractor.getValue(POM_ELEMENT_VERSION);
+            String value = values.get(POM_ELEMENT_VERSION);
             boolean containsSnapshot = false;
             if (value.trim().endsWith("-SNAPSHOT")) {
                 containsSnapshot = true;
@@ -64,43 +104,47 @@ class VariablesExtractor {
             }
             String variableName = fullVariableName(POM_ELEMENT_VERSION, config);
             variables.add(new Variable(variableName, value));
-
-            BuildLogger logger = config.getBuildLogger();
-            StringBuilder message = new StringBuilder();
-            message.append("Extracted ");
-            message.append(POM_ELEMENT_VERSION);
             if (containsSnapshot) {
-                message.append(" from POM. Stripping '-SNAPSHOT' and setting ");
+                log(POM_ELEMENT_VERSION, " from POM. Stripping '-SNAPSHOT' and setting ", variableName, value, config);
             } else {
-                message.append(" from POM. Setting ");
+                log(POM_ELEMENT_VERSION, " from POM. Setting ", variableName, value, config);
             }
-            message.append(config.getVariableType());
-            message.append(" variable ");
-            message.append(variableName);
-            message.append(" to ");
-            message.append(value);
-            logger.addBuildLogEntry(message.toString());
         } else {
-            doExtract(POM_ELEMENT_VERSION, fullVariableName(POM_ELEMENT_VERSION, config), extractor, variables, config);
+            doExtract(POM_ELEMENT_VERSION, fullVariableName(POM_ELEMENT_VERSION, config), values, variables, config);
         }
     }
 
-    private void doExtract(String element, String variableName, PomValueExtractor extractor, List<Variable> variables,
+    private void doExtract(String element, String variableName, Map<String, String> values, List<Variable> variables,
             TaskConfiguration config) {
-        String value = extractor.getValue(element);
+        String value = values.get(element);
         variables.add(new Variable(variableName, value));
+        log(element, " from POM. Setting ", variableName, value, config);
+    }
 
-        BuildLogger logger = config.getBuildLogger();
+    /**
+     * Only builds the message if it is going to be written: to the build log
+     * when logging each variable, otherwise at debug level.
+     */
+    private void log(String element, String action, String variableName, String value, TaskConfiguration config) {
+        boolean detailed = config.getVariableLogging() == VariableLogging.DETAILED;
+        if (!detailed && !LOG.isDebugEnabled()) {
+            return;
+        }
         StringBuilder message = new StringBuilder();
         message.append("Extracted ");
         message.append(element);
-        message.append(" from POM. Setting ");
+        message.append(action);
         message.append(config.getVariableType());
         message.append(" variable ");
         message.append(variableName);
         message.append(" to ");
         message.append(value);
-        logger.addBuildLogEntry(message.toString());
+        if (detailed) {
+            BuildLogger logger = config.getBuildLogger();
+            logger.addBuildLogEntry(message.toString());
+        } else {
+            LOG.debug(message);
+        }
     }
 
     private String fullVariableName(String name, TaskConfiguration config) {
@@ -108,6 +152,13 @@ class VariablesExtractor {
         if (config.isCustomPrefix()) {
             prefix = config.getCustomPrefix();
         }
-        return prefix + name;
+        return prefix + qualify(name);
+    }
+
+    private String qualify(String name) {
+        if (module == null) {
+            return name;
+        }
+        return module + "." + name;
     }
 }
\ No newline at end of file
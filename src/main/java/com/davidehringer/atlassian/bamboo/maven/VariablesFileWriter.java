@@ -0,0 +1,257 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.atlassian.bamboo.maven;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes variables to a file in one of the {@link ExportFormat}s. The file is
+ * written next to its final location and then moved over it atomically, so a
+ * reader sees either the previous file or the complete new one, never a
+ * partial write. On a file system that can't move atomically the file is
+ * replaced with a plain move instead, which gives no such guarantee.
+ * 
+ * @author David Ehringer
+ */
+class VariablesFileWriter {
+
+    private static final String UTF_8 = "UTF-8";
+    private static final String ISO_8859_1 = "ISO-8859-1";
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private VariablesFileWriter() {
+    }
+
+    static void write(List<Variable> variables, ExportFormat format, File file) throws IOException {
+        switch (format) {
+        case PROPERTIES:
+            // Properties files are Latin-1, everything else is escaped
+            write(file, encode(toProperties(variables), ISO_8859_1));
+            break;
+        case JSON:
+            write(file, encode(toJson(variables), UTF_8));
+            break;
+        case ENV:
+            write(file, encode(toEnv(variables), UTF_8));
+            break;
+        default:
+            throw new IllegalArgumentException("Variables can't be exported as " + format);
+        }
+    }
+
+    static String toProperties(List<Variable> variables) {
+        StringBuilder text = new StringBuilder();
+        for (Variable variable : variables) {
+            appendProperty(text, variable.getName(), true);
+            text.append('=');
+            appendProperty(text, valueOf(variable), false);
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    static String toJson(List<Variable> variables) {
+        StringBuilder text = new StringBuilder("{");
+        for (int i = 0; i < variables.size(); i++) {
+            Variable variable = variables.get(i);
+            text.append(i == 0 ? "\n  " : ",\n  ");
+            appendJson(text, variable.getName());
+            text.append(": ");
+            appendJson(text, valueOf(variable));
+        }
+        text.append(variables.isEmpty() ? "}\n" : "\n}\n");
+        return text.toString();
+    }
+
+    /**
+     * @throws IllegalArgumentException
+     *             if two variables have the same environment variable name,
+     *             e.g. <code>maven.a-b</code> and <code>maven.a_b</code>, as
+     *             the later one would silently replace the earlier one
+     */
+    static String toEnv(List<Variable> variables) {
+        StringBuilder text = new StringBuilder();
+        Map<String, String> names = new HashMap<String, String>();
+        for (Variable variable : variables) {
+            String envName = toEnvName(variable.getName());
+            String other = names.put(envName, variable.getName());
+            if (other != null && !other.equals(variable.getName())) {
+                throw new IllegalArgumentException("Variables " + other + " and " + variable.getName()
+                        + " are both exported as " + envName);
+            }
+            text.append("export ");
+            text.append(envName);
+            text.append("='");
+            // Nothing is special inside single quotes except the quote itself
+            text.append(valueOf(variable).replace("'", "'\\''"));
+            text.append("'\n");
+        }
+        return text.toString();
+    }
+
+    static String toEnvName(String name) {
+        StringBuilder envName = new StringBuilder(name.length() + 1);
+        if (name.length() == 0 || Character.isDigit(name.charAt(0))) {
+            envName.append('_');
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+            envName.append(valid ? c : '_');
+        }
+        return envName.toString();
+    }
+
+    private static void appendProperty(StringBuilder text, String value, boolean key) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '\\':
+                text.append("\\\\");
+                break;
+            case '\n':
+                text.append("\\n");
+                break;
+            case '\r':
+                text.append("\\r");
+                break;
+            case '\t':
+                text.append("\\t");
+                break;
+            case '\f':
+                text.append("\\f");
+                break;
+            case '=':
+            case ':':
+            case '#':
+            case '!':
+                text.append('\\').append(c);
+                break;
+            case ' ':
+                // Only leading spaces of values are significant
+                if (key || i == 0) {
+                    text.append('\\');
+                }
+                text.append(c);
+                break;
+            default:
+                if (c < 0x20 || c > 0x7e) {
+                    appendUnicode(text, c);
+                } else {
+                    text.append(c);
+                }
+            }
+        }
+    }
+
+    private static void appendJson(StringBuilder text, String value) {
+        text.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '"':
+                text.append("\\\"");
+                break;
+            case '\\':
+                text.append("\\\\");
+                break;
+            case '\n':
+                text.append("\\n");
+                break;
+            case '\r':
+                text.append("\\r");
+                break;
+            case '\t':
+                text.append("\\t");
+                break;
+            default:
+                if (c < 0x20) {
+                    appendUnicode(text, c);
+                } else {
+                    text.append(c);
+                }
+            }
+        }
+        text.append('"');
+    }
+
+    private static void appendUnicode(StringBuilder text, char c) {
+        text.append("\\u");
+        text.append(HEX[(c >> 12) & 0xF]).append(HEX[(c >> 8) & 0xF]);
+        text.append(HEX[(c >> 4) & 0xF]).append(HEX[c & 0xF]);
+    }
+
+    private static String valueOf(Variable variable) {
+        return variable.getValue() == null ? "" : variable.getValue();
+    }
+
+    private static byte[] encode(String text, String charset) {
+        try {
+            return text.getBytes(charset);
+        } catch (UnsupportedEncodingException e) {
+            // Every JVM supports UTF-8 and ISO-8859-1
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The temporary file is created in the target's directory so the move
+     * never crosses file systems. Its name starts with a dot and the target's
+     * name, which also keeps it long enough for target names of one or two
+     * characters.
+     */
+    private static void write(File file, byte[] content) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Unable to create directory " + dir);
+        }
+        File temp = File.createTempFile("." + file.getName() + ".export", ".tmp", dir);
+        try {
+            FileOutputStream output = new FileOutputStream(temp);
+            try {
+                FileChannel channel = output.getChannel();
+                ByteBuffer buffer = ByteBuffer.wrap(content);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            } finally {
+                output.close();
+            }
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            if (temp.exists()) {
+                temp.delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import java.util.List;
+
+/**
+ * A property expression that has been split into segments, each with a
+ * reusable {@link PropertyAccessor}. Instances are immutable and shared, see
+ * {@link PropertyPathCompiler#compile(String)}.
+ * 
+ * @author David Ehringer
+ */
+final class CompiledPropertyPath {
+
+    private final String expression;
+    private final List<String> segments;
+    private final List<PropertyAccessor> accessors;
+
+    CompiledPropertyPath(String expression, List<String> segments, List<PropertyAccessor> accessors) {
+        this.expression = expression;
+        this.segments = segments;
+        this.accessors = accessors;
+    }
+
+    String getExpression() {
+        return expression;
+    }
+
+    int size() {
+        return segments.size();
+    }
+
+    String getSegment(int index) {
+        return segments.get(index);
+    }
+
+    PropertyAccessor getAccessor(int index) {
+        return accessors.get(index);
+    }
+
+    /**
+     * @return the value at the end of the path or <code>null</code> if it, or
+     *         any element on the way to it, is not set. Paths with a wildcard
+     *         segment return a {@link ValueList}.
+     */
+    Object evaluate(Object root) throws NoSuchPropertyException {
+        return evaluate(root, new ModelIndex());
+    }
+
+    Object evaluate(Object root, ModelIndex index) throws NoSuchPropertyException {
+        Object value = root;
+        for (int i = 0; i < accessors.size() && value != null; i++) {
+            value = apply(accessors.get(i), value, index);
+        }
+        return value;
+    }
+
+    /**
+     * Applies a segment to a value, or to each of the values once a wildcard
+     * has been passed.
+     */
+    static Object apply(PropertyAccessor accessor, Object value, ModelIndex index) throws NoSuchPropertyException {
+        if (!(value instanceof ValueList)) {
+            return accessor.get(value, index);
+        }
+        ValueList values = new ValueList();
+        for (Object element : (ValueList) value) {
+            values.addValue(accessor.get(element, index));
+        }
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
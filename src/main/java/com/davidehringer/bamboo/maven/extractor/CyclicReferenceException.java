@@ -0,0 +1,65 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown when <code>${...}</code> expressions refer to each other, directly
+ * or through other expressions, so their values can never be resolved.
+ * 
+ * @author David Ehringer
+ */
+@SuppressWarnings("serial")
+public class CyclicReferenceException extends InvalidPomException {
+
+    private final List<String> expressions;
+
+    /**
+     * @param expressions
+     *            the expressions of the cycle in the order they refer to
+     *            each other, starting and ending with the same expression
+     */
+    public CyclicReferenceException(List<String> expressions) {
+        super("Cyclic property reference: " + chain(expressions));
+        this.expressions = Collections.unmodifiableList(new ArrayList<String>(expressions));
+    }
+
+    public List<String> getExpressions() {
+        return expressions;
+    }
+
+    /**
+     * @return the cycle as written in the POM, e.g.
+     *         <code>${a} =&gt; ${b} =&gt; ${a}</code>
+     */
+    public String getChain() {
+        return chain(expressions);
+    }
+
+    private static String chain(List<String> expressions) {
+        StringBuilder chain = new StringBuilder();
+        for (String expression : expressions) {
+            if (chain.length() > 0) {
+                chain.append(" => ");
+            }
+            chain.append("${").append(expression).append('}');
+        }
+        return chain.toString();
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+
+/**
+ * Builds a simplified effective model: the coordinates and properties a POM
+ * inherits from its parents. Parents are only looked for on disk, following
+ * <code>parent.relativePath</code> (default <code>../pom.xml</code>); no
+ * repository is consulted. The chain stops at the first parent that cannot be
+ * found locally or whose coordinates do not match the child's
+ * <code>&lt;parent&gt;</code> element.
+ * 
+ * @author David Ehringer
+ */
+public class EffectiveModelBuilder {
+
+    private static final String DEFAULT_RELATIVE_PATH = "../pom.xml";
+    private static final String DEFAULT_POM = "pom.xml";
+
+    private final ParentModelCache parentCache;
+    private final List<FileFingerprint> fingerprints = new ArrayList<FileFingerprint>();
+
+    public EffectiveModelBuilder() {
+        this(ParentModelCache.getInstance());
+    }
+
+    public EffectiveModelBuilder(ParentModelCache parentCache) {
+        this.parentCache = parentCache;
+    }
+
+    public Model build(File pomFile) throws FileNotFoundException, InvalidPomException {
+        fingerprints.clear();
+        long lastModified = pomFile.lastModified();
+        ByteBuffer pom = MavenModelReader.buffer(pomFile);
+        Model model = MavenModelReader.read(pom, pomFile);
+        fingerprints.add(new FileFingerprint(pomFile, lastModified, pom));
+
+        List<Model> parents = findParents(model, pomFile);
+        // Apply from the top-most parent down so closer POMs win
+        Properties properties = new Properties();
+        for (int i = parents.size() - 1; i >= 0; i--) {
+            properties.putAll(parents.get(i).getProperties());
+        }
+        properties.putAll(model.getProperties());
+        model.setProperties(properties);
+
+        Parent parent = model.getParent();
+        if (parent != null) {
+            if (model.getGroupId() == null) {
+                model.setGroupId(parent.getGroupId());
+            }
+            if (model.getVersion() == null) {
+                model.setVersion(parent.getVersion());
+            }
+        }
+        return model;
+    }
+
+    /**
+     * @return the POM and the local parent POMs that were read by the last
+     *         {@link #build(File)}, starting with the POM itself
+     */
+    public List<File> getPomFiles() {
+        List<File> pomFiles = new ArrayList<File>(fingerprints.size());
+        for (FileFingerprint fingerprint : fingerprints) {
+            pomFiles.add(fingerprint.getFile());
+        }
+        return Collections.unmodifiableList(pomFiles);
+    }
+
+    /**
+     * @return the fingerprints of the bytes of {@link #getPomFiles()} that
+     *         the last {@link #build(File)} parsed
+     */
+    public List<FileFingerprint> getFingerprints() {
+        return Collections.unmodifiableList(fingerprints);
+    }
+
+    private List<Model> findParents(Model model, File pomFile) {
+        List<Model> parents = new ArrayList<Model>();
+        Set<File> visited = new HashSet<File>();
+        visited.add(pomFile.getAbsoluteFile());
+
+        Model child = model;
+        File childFile = pomFile;
+        while (child.getParent() != null) {
+            File parentFile = parentFile(child, childFile);
+            if (parentFile == null || !visited.add(parentFile)) {
+                break;
+            }
+            ParentModelCache.CachedModel cached;
+            try {
+                cached = parentCache.lookup(parentFile);
+            } catch (FileNotFoundException e) {
+                break;
+            }
+            Model parent = cached.getModel();
+            if (!isParentOf(parent, child.getParent())) {
+                break;
+            }
+            parents.add(parent);
+            fingerprints.add(cached.getFingerprint());
+            child = parent;
+            childFile = parentFile;
+        }
+        return parents;
+    }
+
+    private File parentFile(Model child, File childFile) {
+        String relativePath = child.getParent().getRelativePath();
+        if (relativePath == null) {
+            relativePath = DEFAULT_RELATIVE_PATH;
+        }
+        if (relativePath.trim().length() == 0) {
+            // An empty relativePath means "look in the repository only"
+            return null;
+        }
+        File parentFile = new File(childFile.getAbsoluteFile().getParentFile(), relativePath);
+        if (parentFile.isDirectory()) {
+            parentFile = new File(parentFile, DEFAULT_POM);
+        }
+        if (!parentFile.isFile()) {
+            return null;
+        }
+        try {
+            return parentFile.getCanonicalFile();
+        } catch (IOException e) {
+            return parentFile.getAbsoluteFile();
+        }
+    }
+
+    private boolean isParentOf(Model parent, Parent reference) {
+        String groupId = parent.getGroupId();
+        if (groupId == null && parent.getParent() != null) {
+            groupId = parent.getParent().getGroupId();
+        }
+        return reference.getArtifactId() != null && reference.getArtifactId().equals(parent.getArtifactId())
+                && (reference.getGroupId() == null || reference.getGroupId().equals(groupId));
+    }
+}
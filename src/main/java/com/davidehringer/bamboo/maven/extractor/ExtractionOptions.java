@@ -0,0 +1,85 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * How {@link PomValueExtractorFactory} should read a POM.
+ * 
+ * @author David Ehringer
+ */
+public class ExtractionOptions {
+
+    private boolean effectiveModel = false;
+    private boolean interpolate = false;
+    private boolean lazyModel = false;
+    private Map<String, String> externalVariables = Collections.emptyMap();
+
+    public boolean isEffectiveModel() {
+        return effectiveModel;
+    }
+
+    /**
+     * Resolve values inherited from local parent POMs, see
+     * {@link EffectiveModelBuilder}.
+     */
+    public void setEffectiveModel(boolean effectiveModel) {
+        this.effectiveModel = effectiveModel;
+    }
+
+    public boolean isInterpolate() {
+        return interpolate;
+    }
+
+    /**
+     * Resolve <code>${...}</code> expressions in extracted values, see
+     * {@link PropertyInterpolator}.
+     */
+    public void setInterpolate(boolean interpolate) {
+        this.interpolate = interpolate;
+    }
+
+    public boolean isLazyModel() {
+        return lazyModel;
+    }
+
+    /**
+     * Only parse the sections of the POM that requested properties need, see
+     * {@link PomValueExtractorLazyModel}. Has no effect when the full model is
+     * required.
+     */
+    public void setLazyModel(boolean lazyModel) {
+        this.lazyModel = lazyModel;
+    }
+
+    public Map<String, String> getExternalVariables() {
+        return externalVariables;
+    }
+
+    /**
+     * Variables from outside of the POM, e.g. <code>env.*</code> and Bamboo
+     * variables, that interpolated expressions may refer to.
+     */
+    public void setExternalVariables(Map<String, String> externalVariables) {
+        this.externalVariables = externalVariables;
+    }
+
+    boolean isModelRequired() {
+        return effectiveModel || interpolate;
+    }
+}
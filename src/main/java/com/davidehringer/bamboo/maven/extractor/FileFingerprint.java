@@ -0,0 +1,91 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+/**
+ * The size, modification time and content hash of a POM file, taken from the
+ * bytes that were parsed so that a change made while the file was being read
+ * cannot slip in unnoticed. The modification time must be read before the
+ * bytes: a file changed in between then looks modified, and its content hash
+ * decides.
+ * 
+ * @author David Ehringer
+ */
+public final class FileFingerprint {
+
+    private final File file;
+    private final long length;
+    private final long lastModified;
+    private final String hash;
+    private final long taken;
+
+    /**
+     * @param lastModified
+     *            the modification time of the file, read before the bytes
+     * @param pom
+     *            the bytes that were parsed; the buffer is not modified
+     */
+    public FileFingerprint(File file, long lastModified, ByteBuffer pom) {
+        this(file, pom.remaining(), lastModified, PomValuesCache.contentHash(pom), System.currentTimeMillis());
+    }
+
+    FileFingerprint(File file, long length, long lastModified, String hash, long taken) {
+        this.file = file;
+        this.length = length;
+        this.lastModified = lastModified;
+        this.hash = hash;
+        this.taken = taken;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * @return the SHA-1 of the parsed bytes in hex
+     */
+    public String getHash() {
+        return hash;
+    }
+
+    /**
+     * @return when the fingerprint was taken, for the racy modification time
+     *         check
+     */
+    public long getTaken() {
+        return taken;
+    }
+
+    /**
+     * A file modified within {@link FingerprintStore#RACY_MILLIS} of the
+     * fingerprint may have been rewritten without a new modification time or
+     * size, so only its content tells whether it changed.
+     */
+    boolean isRacy() {
+        return lastModified + FingerprintStore.RACY_MILLIS > taken;
+    }
+}
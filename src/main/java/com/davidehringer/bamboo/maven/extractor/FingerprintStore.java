@@ -0,0 +1,306 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Remembers the values extracted from a set of POM files together with a
+ * {@link FileFingerprint} of each file, so that a later build can reuse the
+ * values without parsing when none of the files changed. The fingerprints
+ * are taken from the bytes the values were extracted from.
+ * <p>
+ * A file whose size and modification time still match is trusted without
+ * reading it, unless it was modified within {@link #RACY_MILLIS} of being
+ * fingerprinted: a rewrite in that window may keep both. Otherwise, as when
+ * only the modification time differs after a fresh checkout, the content
+ * hash decides. The store is a properties file; a
+ * missing, unreadable or unwritable store only means values are extracted
+ * again. It keeps the values of at most {@link #DEFAULT_MAX_ENTRIES} keys
+ * unless told otherwise; the values stored longest ago are dropped first.
+ * 
+ * @author David Ehringer
+ */
+public class FingerprintStore {
+
+    private static final String KEY = ".key";
+    private static final String FILES = ".files";
+    private static final String FILE = ".file.";
+    private static final String ORDER = ".order";
+    private static final String VALUE = ".value.";
+
+    /**
+     * Covers file systems that store modification times in whole seconds.
+     */
+    static final long RACY_MILLIS = 2000;
+
+    public static final int DEFAULT_MAX_ENTRIES = 32;
+
+    private final File storeFile;
+    private final int maxEntries;
+    private Properties store;
+    private int hits;
+    private int misses;
+
+    public FingerprintStore(File storeFile) {
+        this(storeFile, DEFAULT_MAX_ENTRIES);
+    }
+
+    public FingerprintStore(File storeFile, int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("A store must keep at least one entry: " + maxEntries);
+        }
+        this.storeFile = storeFile;
+        this.maxEntries = maxEntries;
+    }
+
+    public File getStoreFile() {
+        return storeFile;
+    }
+
+    /**
+     * @return the stored values if every fingerprinted file is unchanged,
+     *         otherwise <code>null</code>
+     */
+    public synchronized Map<String, String> get(String key) {
+        String id = id(key);
+        Properties properties = load();
+        if (!key.equals(properties.getProperty(id + KEY)) || !verify(properties, id)) {
+            misses++;
+            return null;
+        }
+        Map<String, String> values = new LinkedHashMap<String, String>();
+        String prefix = id + VALUE;
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith(prefix)) {
+                values.put(name.substring(prefix.length()), properties.getProperty(name));
+            }
+        }
+        hits++;
+        return values;
+    }
+
+    /**
+     * Stores the values with the fingerprints of the files they were
+     * extracted from.
+     */
+    public synchronized void put(String key, List<FileFingerprint> fingerprints, Map<String, String> values) {
+        String id = id(key);
+        Properties properties = load();
+        remove(properties, id);
+        for (int i = 0; i < fingerprints.size(); i++) {
+            FileFingerprint fingerprint = fingerprints.get(i);
+            String prefix = id + FILE + i;
+            properties.setProperty(prefix + ".path", fingerprint.getFile().getAbsolutePath());
+            properties.setProperty(prefix + ".size", String.valueOf(fingerprint.getLength()));
+            properties.setProperty(prefix + ".mtime", String.valueOf(fingerprint.getLastModified()));
+            properties.setProperty(prefix + ".hash", fingerprint.getHash());
+            properties.setProperty(prefix + ".checked", String.valueOf(fingerprint.getTaken()));
+        }
+        properties.setProperty(id + KEY, key);
+        properties.setProperty(id + FILES, String.valueOf(fingerprints.size()));
+        properties.setProperty(id + ORDER, String.valueOf(nextOrder(properties)));
+        for (Map.Entry<String, String> value : values.entrySet()) {
+            properties.setProperty(id + VALUE + value.getKey(), value.getValue());
+        }
+        evict(properties, id);
+        save(properties);
+    }
+
+    /**
+     * @return the number of keys with stored values
+     */
+    public synchronized int size() {
+        return ids(load()).size();
+    }
+
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    private boolean verify(Properties properties, String id) {
+        boolean touched = false;
+        int count = (int) parse(properties.getProperty(id + FILES));
+        for (int i = 0; i < count; i++) {
+            String prefix = id + FILE + i;
+            String path = properties.getProperty(prefix + ".path");
+            if (path == null) {
+                return false;
+            }
+            File file = new File(path);
+            if (!file.isFile() || file.length() != parse(properties.getProperty(prefix + ".size"))) {
+                return false;
+            }
+            String mtime = String.valueOf(file.lastModified());
+            boolean racy = file.lastModified() + RACY_MILLIS > parse(properties.getProperty(prefix + ".checked"));
+            if (racy || !mtime.equals(properties.getProperty(prefix + ".mtime"))) {
+                try {
+                    if (!PomValuesCache.contentHash(file).equals(properties.getProperty(prefix + ".hash"))) {
+                        return false;
+                    }
+                } catch (FileNotFoundException e) {
+                    return false;
+                }
+                if (!mtime.equals(properties.getProperty(prefix + ".mtime"))) {
+                    properties.setProperty(prefix + ".mtime", mtime);
+                    touched = true;
+                }
+            }
+        }
+        if (touched) {
+            save(properties);
+        }
+        return count > 0;
+    }
+
+    private static long parse(String number) {
+        try {
+            return Long.parseLong(number);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static long nextOrder(Properties properties) {
+        long order = 0;
+        for (String id : ids(properties)) {
+            order = Math.max(order, parse(properties.getProperty(id + ORDER)));
+        }
+        return order + 1;
+    }
+
+    /**
+     * Drops the values stored longest ago until at most
+     * <code>maxEntries</code> keys are left, never the ones just stored.
+     */
+    private void evict(Properties properties, String keep) {
+        final List<String> ids = ids(properties);
+        if (ids.size() <= maxEntries) {
+            return;
+        }
+        final Map<String, Long> order = new HashMap<String, Long>();
+        for (String id : ids) {
+            order.put(id, parse(properties.getProperty(id + ORDER)));
+        }
+        ids.remove(keep);
+        Collections.sort(ids, new Comparator<String>() {
+            public int compare(String a, String b) {
+                long orderA = order.get(a);
+                long orderB = order.get(b);
+                return orderA < orderB ? -1 : (orderA == orderB ? 0 : 1);
+            }
+        });
+        for (int i = 0; i < ids.size() + 1 - maxEntries; i++) {
+            remove(properties, ids.get(i));
+        }
+    }
+
+    private static List<String> ids(Properties properties) {
+        List<String> ids = new ArrayList<String>();
+        for (String name : properties.stringPropertyNames()) {
+            // Value names may end with .key too, ids never contain a dot
+            if (name.endsWith(KEY) && name.indexOf('.') == name.length() - KEY.length()) {
+                ids.add(name.substring(0, name.length() - KEY.length()));
+            }
+        }
+        return ids;
+    }
+
+    private void remove(Properties properties, String id) {
+        List<String> names = new ArrayList<String>();
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith(id + ".")) {
+                names.add(name);
+            }
+        }
+        for (String name : names) {
+            properties.remove(name);
+        }
+    }
+
+    private Properties load() {
+        if (store == null) {
+            store = new Properties();
+            if (storeFile.isFile()) {
+                try {
+                    InputStream input = new BufferedInputStream(new FileInputStream(storeFile));
+                    try {
+                        store.load(input);
+                    } finally {
+                        input.close();
+                    }
+                } catch (IOException e) {
+                    store.clear();
+                } catch (IllegalArgumentException e) {
+                    // Malformed escape sequence, start over
+                    store.clear();
+                }
+            }
+        }
+        return store;
+    }
+
+    private void save(Properties properties) {
+        File dir = storeFile.getAbsoluteFile().getParentFile();
+        File temp = new File(dir, storeFile.getName() + ".tmp");
+        try {
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                return;
+            }
+            OutputStream output = new BufferedOutputStream(new FileOutputStream(temp));
+            try {
+                properties.store(output, "Fingerprints of POM files and the values extracted from them");
+            } finally {
+                output.close();
+            }
+            if (!temp.renameTo(storeFile)) {
+                storeFile.delete();
+                temp.renameTo(storeFile);
+            }
+        } catch (IOException e) {
+            temp.delete();
+        }
+    }
+
+    /**
+     * Keys contain file paths and property expressions, a hash keeps the
+     * property names of the store short. The full key is stored and compared
+     * as well.
+     */
+    private static String id(String key) {
+        return Integer.toHexString(key.hashCode()) + "-" + key.length();
+    }
+}
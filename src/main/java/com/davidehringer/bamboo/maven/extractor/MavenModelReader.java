@@ -0,0 +1,73 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.apache.maven.model.Model;
+
+/**
+ * Reads a POM file into a raw (non-effective) Maven {@link Model}, with a
+ * parser from the {@link PomParserPool}.
+ * 
+ * @author David Ehringer
+ */
+final class MavenModelReader {
+
+    private MavenModelReader() {
+    }
+
+    static Model read(File pomFile) throws FileNotFoundException, InvalidPomException {
+        Model model = PomParserPool.getInstance().read(pomFile);
+        model.setPomFile(pomFile);
+        return model;
+    }
+
+    /**
+     * Reads a POM, or parts of one, from a stream that is closed afterwards.
+     */
+    static Model read(InputStream input, File pomFile) throws InvalidPomException {
+        Model model = PomParserPool.getInstance().read(input);
+        model.setPomFile(pomFile);
+        return model;
+    }
+
+    /**
+     * Reads a POM, or parts of one, from a buffer. The buffer itself is not
+     * modified.
+     */
+    static Model read(ByteBuffer pom, File pomFile) throws InvalidPomException {
+        return read(PomInput.open(pom), pomFile);
+    }
+
+    /**
+     * @return the bytes of a POM, for callers that look at them before or
+     *         instead of parsing them
+     */
+    static ByteBuffer buffer(File pomFile) throws FileNotFoundException, InvalidPomException {
+        try {
+            return PomInput.buffer(pomFile);
+        } catch (FileNotFoundException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new InvalidPomException(e);
+        }
+    }
+}
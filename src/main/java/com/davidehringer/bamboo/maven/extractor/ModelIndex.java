@@ -0,0 +1,98 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hash indexes over the lists of one parsed model, such as its dependencies,
+ * plugins or profiles, used by selector segments like
+ * <code>dependencies[artifactId=junit]</code>. An index is built the first
+ * time a list is queried by a given property and reused for every later
+ * query, so repeated selectors on large lists are not linear scans.
+ * <p>
+ * Lists are tracked by identity, so an index must not outlive the model it
+ * was built for or be used after the model is modified.
+ * 
+ * @author David Ehringer
+ */
+final class ModelIndex {
+
+    private final Map<List<?>, Map<String, Map<String, List<Object>>>> indexes = new IdentityHashMap<List<?>, Map<String, Map<String, List<Object>>>>();
+
+    /**
+     * @param elements
+     *            a list of the model
+     * @param keyName
+     *            the name of the property the elements are looked up by
+     * @param key
+     *            reads that property from an element
+     * @param value
+     *            the value to look up
+     * @return the elements whose property is equal to the value, in list
+     *         order, or an empty list
+     */
+    synchronized List<Object> find(List<?> elements, String keyName, PropertyAccessor key, String value)
+            throws NoSuchPropertyException {
+        Map<String, Map<String, List<Object>>> byProperty = indexes.get(elements);
+        if (byProperty == null) {
+            byProperty = new HashMap<String, Map<String, List<Object>>>(4);
+            indexes.put(elements, byProperty);
+        }
+        Map<String, List<Object>> index = byProperty.get(keyName);
+        if (index == null) {
+            index = build(elements, key);
+            byProperty.put(keyName, index);
+        }
+        List<Object> matches = index.get(value);
+        return matches == null ? Collections.emptyList() : matches;
+    }
+
+    synchronized int size() {
+        int size = 0;
+        for (Map<String, Map<String, List<Object>>> byProperty : indexes.values()) {
+            size += byProperty.size();
+        }
+        return size;
+    }
+
+    private Map<String, List<Object>> build(List<?> elements, PropertyAccessor key) throws NoSuchPropertyException {
+        Map<String, List<Object>> index = new HashMap<String, List<Object>>(elements.size() * 4 / 3 + 1);
+        for (Object element : elements) {
+            if (element == null) {
+                continue;
+            }
+            Object value = key.get(element, this);
+            if (value == null) {
+                continue;
+            }
+            String indexKey = value.toString();
+            List<Object> bucket = index.get(indexKey);
+            if (bucket == null) {
+                // most keys, e.g. artifactIds, are unique within a list
+                bucket = new ArrayList<Object>(1);
+                index.put(indexKey, bucket);
+            }
+            bucket.add(element);
+        }
+        return index;
+    }
+}
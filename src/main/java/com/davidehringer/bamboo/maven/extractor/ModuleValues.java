@@ -0,0 +1,83 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import java.io.File;
+import java.util.Map;
+
+/**
+ * The values extracted from one module of a reactor.
+ * 
+ * @author David Ehringer
+ */
+public class ModuleValues {
+
+    private final File pomFile;
+    private final String groupId;
+    private final String artifactId;
+    private final Map<String, String> values;
+    private String name;
+
+    public ModuleValues(File pomFile, String artifactId, Map<String, String> values) {
+        this(pomFile, null, artifactId, values);
+    }
+
+    public ModuleValues(File pomFile, String groupId, String artifactId, Map<String, String> values) {
+        this.pomFile = pomFile;
+        this.groupId = groupId;
+        this.artifactId = artifactId;
+        this.values = values;
+        this.name = artifactId;
+    }
+
+    public File getPomFile() {
+        return pomFile;
+    }
+
+    /**
+     * @return the groupId, inherited from the parent if the module does not
+     *         declare its own
+     */
+    public String getGroupId() {
+        return groupId;
+    }
+
+    public String getArtifactId() {
+        return artifactId;
+    }
+
+    /**
+     * @return the name the module's variables are qualified with. This is the
+     *         artifactId, or <code>groupId.artifactId</code> if another module
+     *         of the reactor has the same artifactId.
+     */
+    public String getName() {
+        return name;
+    }
+
+    void qualifyWithGroupId() {
+        name = groupId + "." + artifactId;
+    }
+
+    public Map<String, String> getValues() {
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return "ModuleValues [name=" + name + ", values=" + values + "]";
+    }
+}
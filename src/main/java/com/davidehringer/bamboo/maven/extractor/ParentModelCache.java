@@ -0,0 +1,129 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.maven.model.Model;
+
+/**
+ * Memoizes parsed parent POMs by canonical path so that the modules of a
+ * reactor, which usually share one parent, only parse it once. An entry is
+ * reused as long as the file's size and modification time are unchanged,
+ * unless the file was modified within {@link FingerprintStore#RACY_MILLIS}
+ * of being read: a rewrite in that window may keep both, so the content
+ * decides.
+ * <p>
+ * Cached models are shared and must not be modified.
+ * 
+ * @author David Ehringer
+ */
+public class ParentModelCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 128;
+
+    private static final ParentModelCache SHARED = new ParentModelCache(DEFAULT_MAX_ENTRIES);
+
+    private final Map<String, CachedModel> entries;
+
+    public ParentModelCache(final int maxEntries) {
+        entries = new LinkedHashMap<String, CachedModel>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedModel> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public static ParentModelCache getInstance() {
+        return SHARED;
+    }
+
+    public Model get(File pomFile) throws FileNotFoundException, InvalidPomException {
+        return lookup(pomFile).getModel();
+    }
+
+    /**
+     * @return the parsed POM together with the fingerprint of the bytes it
+     *         was parsed from
+     */
+    CachedModel lookup(File pomFile) throws FileNotFoundException, InvalidPomException {
+        String path = canonicalPath(pomFile);
+        long lastModified = pomFile.lastModified();
+        long length = pomFile.length();
+        CachedModel entry;
+        synchronized (entries) {
+            entry = entries.get(path);
+        }
+        if (entry != null && entry.fingerprint.getLastModified() == lastModified
+                && entry.fingerprint.getLength() == length && !entry.fingerprint.isRacy()) {
+            return entry;
+        }
+        // Read outside of the lock, two threads racing on the same parent
+        // just both read it once.
+        ByteBuffer pom = MavenModelReader.buffer(pomFile);
+        FileFingerprint fingerprint = new FileFingerprint(pomFile, lastModified, pom);
+        if (entry != null && entry.fingerprint.getHash().equals(fingerprint.getHash())) {
+            entry = new CachedModel(entry.model, fingerprint);
+        } else {
+            entry = new CachedModel(MavenModelReader.read(pom, pomFile), fingerprint);
+        }
+        synchronized (entries) {
+            entries.put(path, entry);
+        }
+        return entry;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static String canonicalPath(File file) {
+        try {
+            return file.getCanonicalPath();
+        } catch (IOException e) {
+            return file.getAbsolutePath();
+        }
+    }
+
+    static final class CachedModel {
+
+        private final Model model;
+        private final FileFingerprint fingerprint;
+
+        CachedModel(Model model, FileFingerprint fingerprint) {
+            this.model = model;
+            this.fingerprint = fingerprint;
+        }
+
+        Model getModel() {
+            return model;
+        }
+
+        FileFingerprint getFingerprint() {
+            return fingerprint;
+        }
+    }
+}
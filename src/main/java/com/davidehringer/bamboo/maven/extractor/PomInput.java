@@ -0,0 +1,141 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Opens POM files as byte streams. Character decoding is left to the XML
+ * parser so that the encoding declared in the prolog (or a byte order mark)
+ * is honoured instead of the platform default.
+ * <p>
+ * Files of at least {@link #MAP_THRESHOLD} bytes are memory-mapped so that
+ * a very large POM is read straight from the page cache instead of being
+ * copied through a heap buffer. Mapping is skipped on Windows, where a
+ * mapped file cannot be deleted or rewritten until the mapping is garbage
+ * collected.
+ * 
+ * @author David Ehringer
+ */
+final class PomInput {
+
+    static final long MAP_THRESHOLD = 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private static final boolean WINDOWS = System.getProperty("os.name", "").startsWith("Windows");
+
+    private PomInput() {
+    }
+
+    static InputStream open(File pomFile) throws FileNotFoundException, IOException {
+        if (!WINDOWS && pomFile.length() >= MAP_THRESHOLD) {
+            return map(pomFile);
+        }
+        return new BufferedInputStream(new FileInputStream(pomFile), BUFFER_SIZE);
+    }
+
+    static InputStream map(File pomFile) throws FileNotFoundException, IOException {
+        return new ByteBufferInputStream(mapBuffer(pomFile));
+    }
+
+    /**
+     * @return the whole file for random access, memory-mapped under the same
+     *         conditions as {@link #open(File)}
+     */
+    static ByteBuffer buffer(File pomFile) throws FileNotFoundException, IOException {
+        if (!WINDOWS && pomFile.length() >= MAP_THRESHOLD) {
+            return mapBuffer(pomFile);
+        }
+        RandomAccessFile file = new RandomAccessFile(pomFile, "r");
+        try {
+            byte[] bytes = new byte[(int) file.length()];
+            file.readFully(bytes);
+            return ByteBuffer.wrap(bytes);
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * @return a stream of the bytes between the buffer's position and limit.
+     *         The buffer itself is not modified.
+     */
+    static InputStream open(ByteBuffer buffer) {
+        return new ByteBufferInputStream(buffer.slice());
+    }
+
+    private static ByteBuffer mapBuffer(File pomFile) throws FileNotFoundException, IOException {
+        RandomAccessFile file = new RandomAccessFile(pomFile, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            file.close();
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            return buffer.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
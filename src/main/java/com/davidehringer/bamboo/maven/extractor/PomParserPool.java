@@ -0,0 +1,231 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.model.ModelBase;
+import org.apache.maven.model.Profile;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader.ContentTransformer;
+import org.codehaus.plexus.util.xml.pull.EntityReplacementMap;
+import org.codehaus.plexus.util.xml.pull.MXParser;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+
+/**
+ * Reuses XML parsers and read buffers across POM files. A parser and its
+ * internal buffers, along with the default entity table, are set up once and
+ * reset for every file, and files below {@link PomInput#MAP_THRESHOLD} are
+ * read into a reused byte array. Reactor-wide extraction therefore no longer
+ * allocates a reader, parser and stream buffer per POM.
+ * <p>
+ * A thread borrows a parser for the duration of one parse, so each parser is
+ * only ever used by one thread at a time. Idle parsers are kept in a bounded
+ * pool rather than in thread locals, which would keep them, and the plugin's
+ * classes, alive in Bamboo's long-lived threads after the plugin is reloaded.
+ * <p>
+ * Values are passed through the {@link StringDeduplicator} as they are
+ * parsed, so models of many modules share repeated coordinates.
+ * 
+ * @author David Ehringer
+ */
+final class PomParserPool {
+
+    static final int MAX_IDLE_PARSERS = 16;
+    static final int MAX_POOLED_BUFFER = 256 * 1024;
+
+    private static final PomParserPool INSTANCE = new PomParserPool(MAX_IDLE_PARSERS);
+
+    private final int maxIdle;
+    private final ConcurrentLinkedQueue<PooledParser> idle = new ConcurrentLinkedQueue<PooledParser>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final AtomicInteger created = new AtomicInteger();
+
+    PomParserPool(int maxIdle) {
+        this.maxIdle = maxIdle;
+    }
+
+    static PomParserPool getInstance() {
+        return INSTANCE;
+    }
+
+    Model read(File pomFile) throws FileNotFoundException, InvalidPomException {
+        PooledParser parser = borrow();
+        try {
+            return parser.parse(open(pomFile, parser));
+        } finally {
+            release(parser);
+        }
+    }
+
+    /**
+     * Reads a POM, or parts of one, from a stream that is closed afterwards.
+     */
+    Model read(InputStream input) throws InvalidPomException {
+        PooledParser parser = borrow();
+        try {
+            return parser.parse(input);
+        } finally {
+            release(parser);
+        }
+    }
+
+    /**
+     * @return the number of parsers created so far
+     */
+    int getCreated() {
+        return created.get();
+    }
+
+    int getIdle() {
+        return idleCount.get();
+    }
+
+    private PooledParser borrow() {
+        PooledParser parser = idle.poll();
+        if (parser != null) {
+            idleCount.decrementAndGet();
+            return parser;
+        }
+        created.incrementAndGet();
+        return new PooledParser();
+    }
+
+    private void release(PooledParser parser) {
+        if (idleCount.incrementAndGet() <= maxIdle) {
+            idle.offer(parser);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+
+    private static InputStream open(File pomFile, PooledParser parser) throws FileNotFoundException,
+            InvalidPomException {
+        try {
+            if (pomFile.length() >= PomInput.MAP_THRESHOLD) {
+                return PomInput.open(pomFile);
+            }
+            RandomAccessFile file = new RandomAccessFile(pomFile, "r");
+            try {
+                int length = (int) file.length();
+                byte[] buffer = parser.buffer(length);
+                file.readFully(buffer, 0, length);
+                return PomInput.open(ByteBuffer.wrap(buffer, 0, length));
+            } finally {
+                file.close();
+            }
+        } catch (FileNotFoundException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new InvalidPomException(e);
+        }
+    }
+
+    /**
+     * Property names and values are not passed through the
+     * {@link ContentTransformer}.
+     */
+    private static void deduplicateProperties(ModelBase model) {
+        Properties properties = model.getProperties();
+        if (properties.isEmpty()) {
+            return;
+        }
+        StringDeduplicator deduplicator = StringDeduplicator.getInstance();
+        Properties shared = new Properties();
+        for (Map.Entry<Object, Object> property : properties.entrySet()) {
+            shared.put(deduplicator.deduplicate((String) property.getKey()),
+                    deduplicator.deduplicate((String) property.getValue()));
+        }
+        model.setProperties(shared);
+    }
+
+    /**
+     * Trims values itself, the reader would otherwise trim the shared instance
+     * into a new string.
+     */
+    private static class Deduplicating implements ContentTransformer {
+
+        public String transform(String source, String fieldName) {
+            return source == null ? null : StringDeduplicator.getInstance().deduplicate(source.trim());
+        }
+    }
+
+    /**
+     * A parser with the Maven model reader on top of it and the buffer files
+     * are read into.
+     */
+    private static class PooledParser {
+
+        private final MavenXpp3Reader reader = new MavenXpp3Reader(new Deduplicating());
+        private final MXParser parser = new MXParser(EntityReplacementMap.defaultEntityReplacementMap);
+        private byte[] buffer;
+
+        /**
+         * Buffers above {@link PomParserPool#MAX_POOLED_BUFFER} are used once
+         * so that one huge POM doesn't pin its size in the pool.
+         */
+        byte[] buffer(int length) {
+            if (buffer != null && buffer.length >= length) {
+                return buffer;
+            }
+            byte[] bytes = new byte[Math.max(length, 16 * 1024)];
+            if (bytes.length <= MAX_POOLED_BUFFER) {
+                buffer = bytes;
+            }
+            return bytes;
+        }
+
+        Model parse(InputStream input) throws InvalidPomException {
+            try {
+                // A null encoding detects it from the prolog or byte order mark
+                parser.setInput(input, null);
+                Model model = reader.read(parser, true);
+                deduplicateProperties(model);
+                for (Profile profile : model.getProfiles()) {
+                    deduplicateProperties(profile);
+                }
+                return model;
+            } catch (IOException e) {
+                throw new InvalidPomException(e);
+            } catch (XmlPullParserException e) {
+                throw new InvalidPomException(e);
+            } finally {
+                try {
+                    // Drops the reference to the stream and its buffers
+                    parser.setInput((Reader) null);
+                } catch (XmlPullParserException e) {
+                    // not thrown without input
+                }
+                try {
+                    input.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads many POM files concurrently. At most <code>parallelism</code> files
+ * are parsed at the same time and at most <code>maxPending</code> are
+ * submitted but not yet finished; callers block until a slot frees up. This
+ * bounds the number of files being read and parsed at any time, not the
+ * memory used by the results: every result is collected until the last file
+ * is done, so memory still grows with the number of files.
+ * Results are always returned in the order of the given files.
+ * <p>
+ * Each call to {@link #extract(List, Collection, ExtractionOptions)} uses
+ * its own thread pool. Callers that process files in several rounds, like
+ * the {@link ReactorExtractor} does for each level of a reactor, share one
+ * pool between the rounds through a {@link Session}.
+ * 
+ * @author David Ehringer
+ */
+public class PomParsingEngine {
+
+    private static final int MAX_DEFAULT_PARALLELISM = 8;
+
+    private final int parallelism;
+    private final int maxPending;
+    private final PomValueExtractorFactory extractorFactory;
+
+    public PomParsingEngine() {
+        this(defaultParallelism());
+    }
+
+    public PomParsingEngine(int parallelism) {
+        this(parallelism, parallelism * 2, new PomValueExtractorFactory());
+    }
+
+    public PomParsingEngine(int parallelism, int maxPending, PomValueExtractorFactory extractorFactory) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        if (maxPending < parallelism) {
+            throw new IllegalArgumentException("maxPending must be at least parallelism");
+        }
+        this.parallelism = parallelism;
+        this.maxPending = maxPending;
+        this.extractorFactory = extractorFactory;
+    }
+
+    public static int defaultParallelism() {
+        return Math.min(Runtime.getRuntime().availableProcessors(), MAX_DEFAULT_PARALLELISM);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Extracts the same properties from each file.
+     * 
+     * @return one map of values per file, in the order of <code>pomFiles</code>
+     */
+    public List<Map<String, String>> extract(List<File> pomFiles, final Collection<String> properties,
+            final ExtractionOptions options) throws FileNotFoundException, InvalidPomException {
+        return process(pomFiles, new PomTask<Map<String, String>>() {
+            public Map<String, String> process(File pomFile) throws FileNotFoundException {
+                return extractorFactory.create(pomFile, properties, options).getValues(properties);
+            }
+        });
+    }
+
+    <T> List<T> process(List<File> pomFiles, PomTask<T> task) throws FileNotFoundException, InvalidPomException {
+        Session session = open();
+        try {
+            return session.process(pomFiles, task);
+        } finally {
+            session.close();
+        }
+    }
+
+    /**
+     * @return a session whose threads are started on first use and stopped
+     *         when it is closed
+     */
+    Session open() {
+        return new Session();
+    }
+
+    /**
+     * Processes any number of batches of files on one thread pool.
+     */
+    final class Session {
+
+        private ExecutorService executor;
+
+        private Session() {
+        }
+
+        <T> List<T> process(List<File> pomFiles, final PomTask<T> task) throws FileNotFoundException,
+                InvalidPomException {
+            List<T> results = new ArrayList<T>(pomFiles.size());
+            if (pomFiles.size() == 1) {
+                results.add(task.process(pomFiles.get(0)));
+                return results;
+            }
+            if (executor == null) {
+                executor = Executors.newFixedThreadPool(parallelism, new ParserThreadFactory());
+            }
+            final Semaphore pending = new Semaphore(maxPending);
+            List<Future<T>> futures = new ArrayList<Future<T>>(pomFiles.size());
+            try {
+                for (final File pomFile : pomFiles) {
+                    acquire(pending);
+                    futures.add(executor.submit(new Callable<T>() {
+                        public T call() throws Exception {
+                            try {
+                                return task.process(pomFile);
+                            } finally {
+                                pending.release();
+                            }
+                        }
+                    }));
+                }
+                for (Future<T> future : futures) {
+                    results.add(await(future));
+                }
+                return results;
+            } finally {
+                // Don't leave work of a failed batch running into the next one
+                for (Future<T> future : futures) {
+                    future.cancel(true);
+                }
+            }
+        }
+
+        void close() {
+            if (executor != null) {
+                executor.shutdownNow();
+                executor = null;
+            }
+        }
+    }
+
+    private void acquire(Semaphore pending) {
+        try {
+            pending.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InvalidPomException("Interrupted while reading POM files", e);
+        }
+    }
+
+    private <T> T await(Future<T> future) throws FileNotFoundException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InvalidPomException("Interrupted while reading POM files", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof FileNotFoundException) {
+                throw (FileNotFoundException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new InvalidPomException(cause);
+        }
+    }
+
+    /**
+     * Work done for a single POM file on one of the engine's threads.
+     */
+    interface PomTask<T> {
+
+        T process(File pomFile) throws FileNotFoundException, InvalidPomException;
+    }
+
+    private static class ParserThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger POOL = new AtomicInteger();
+
+        private final int pool = POOL.incrementAndGet();
+        private final AtomicInteger thread = new AtomicInteger();
+
+        public Thread newThread(Runnable runnable) {
+            Thread t = new Thread(runnable, "pom-parser-" + pool + "-" + thread.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
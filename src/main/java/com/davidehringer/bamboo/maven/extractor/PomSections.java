@@ -0,0 +1,296 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+
+/**
+ * The byte ranges of the top-level sections of a POM, i.e. the children of
+ * <code>project</code> such as <code>version</code>, <code>build</code> or
+ * <code>profiles</code>. They are found with one quick scan for tags that
+ * does not decode text or build any objects, so that
+ * {@link #open(Collection)} can hand just the sections that are needed to
+ * the XML parser.
+ * <p>
+ * The scan works on the raw bytes and so only supports encodings in which
+ * markup is ASCII, e.g. UTF-8 and ISO-8859-1. {@link #scan(ByteBuffer)}
+ * returns <code>null</code> for anything else, e.g. UTF-16.
+ * 
+ * @author David Ehringer
+ */
+final class PomSections {
+
+    private static final String PROJECT_ELEMENT = "project";
+
+    private final ByteBuffer pom;
+    private final int contentStart;
+    private final int contentEnd;
+    private final Map<String, List<int[]>> sections;
+
+    private PomSections(ByteBuffer pom, int contentStart, int contentEnd, Map<String, List<int[]>> sections) {
+        this.pom = pom;
+        this.contentStart = contentStart;
+        this.contentEnd = contentEnd;
+        this.sections = sections;
+    }
+
+    /**
+     * @return the sections or <code>null</code> if the POM is not in an ASCII
+     *         compatible encoding
+     */
+    static PomSections scan(ByteBuffer pom) throws InvalidPomException {
+        return new Scanner(pom).scan();
+    }
+
+    Collection<String> getNames() {
+        return Collections.unmodifiableSet(sections.keySet());
+    }
+
+    boolean contains(String name) {
+        return sections.containsKey(name);
+    }
+
+    /**
+     * @return a POM with the prolog, the <code>project</code> element and
+     *         only the named sections, in their original order
+     */
+    InputStream open(Collection<String> names) {
+        List<int[]> ranges = new ArrayList<int[]>();
+        for (String name : names) {
+            List<int[]> sectionRanges = sections.get(name);
+            if (sectionRanges != null) {
+                ranges.addAll(sectionRanges);
+            }
+        }
+        Collections.sort(ranges, new Comparator<int[]>() {
+            public int compare(int[] first, int[] second) {
+                return first[0] < second[0] ? -1 : (first[0] == second[0] ? 0 : 1);
+            }
+        });
+        Vector<InputStream> parts = new Vector<InputStream>(ranges.size() + 2);
+        parts.add(slice(0, contentStart));
+        for (int[] range : ranges) {
+            parts.add(slice(range[0], range[1]));
+        }
+        parts.add(slice(contentEnd, pom.limit()));
+        return new SequenceInputStream(parts.elements());
+    }
+
+    private InputStream slice(int start, int end) {
+        ByteBuffer slice = pom.duplicate();
+        slice.limit(end);
+        slice.position(start);
+        return PomInput.open(slice);
+    }
+
+    /**
+     * Tracks the element depth through tags, skipping comments, CDATA,
+     * processing instructions, DOCTYPEs and quoted attribute values.
+     */
+    private static class Scanner {
+
+        private final ByteBuffer pom;
+        private final int limit;
+        private final Map<String, List<int[]>> sections = new LinkedHashMap<String, List<int[]>>();
+        private int depth = 0;
+        private int contentStart = -1;
+        private int sectionStart = -1;
+        private String sectionName;
+
+        Scanner(ByteBuffer pom) {
+            this.pom = pom;
+            this.limit = pom.limit();
+        }
+
+        PomSections scan() throws InvalidPomException {
+            if (!isAsciiCompatible()) {
+                return null;
+            }
+            int i = 0;
+            while (i < limit) {
+                if (pom.get(i) != '<') {
+                    i++;
+                } else if (startsWith(i, "<!--")) {
+                    i = indexOf(i + 4, "-->") + 3;
+                } else if (startsWith(i, "<![CDATA[")) {
+                    i = indexOf(i + 9, "]]>") + 3;
+                } else if (startsWith(i, "<?")) {
+                    i = indexOf(i + 2, "?>") + 2;
+                } else if (startsWith(i, "<!")) {
+                    i = skipDeclaration(i);
+                } else if (i + 1 < limit && pom.get(i + 1) == '/') {
+                    int end = indexOf(i, ">") + 1;
+                    if (depth == 0) {
+                        throw invalid("Unexpected end tag at byte " + i);
+                    }
+                    depth--;
+                    if (depth == 1) {
+                        addSection(end);
+                    } else if (depth == 0) {
+                        return new PomSections(pom, contentStart, i, sections);
+                    }
+                    i = end;
+                } else {
+                    i = startTag(i);
+                }
+            }
+            throw invalid(contentStart < 0 ? "No <project> element found" : "Unexpected end of POM");
+        }
+
+        private int startTag(int start) throws InvalidPomException {
+            int nameEnd = start + 1;
+            while (nameEnd < limit && !isNameEnd(pom.get(nameEnd))) {
+                nameEnd++;
+            }
+            String name = localName(start + 1, nameEnd);
+            int end = tagEnd(nameEnd);
+            boolean empty = pom.get(end - 1) == '/';
+            if (depth == 0) {
+                if (!PROJECT_ELEMENT.equals(name)) {
+                    throw invalid("Expected <project> but found <" + name + ">");
+                }
+                if (empty) {
+                    throw invalid("Empty <project> element");
+                }
+                contentStart = end + 1;
+                depth = 1;
+            } else if (depth == 1) {
+                sectionName = name;
+                sectionStart = start;
+                if (empty) {
+                    addSection(end + 1);
+                } else {
+                    depth = 2;
+                }
+            } else if (!empty) {
+                depth++;
+            }
+            return end + 1;
+        }
+
+        private void addSection(int end) {
+            List<int[]> ranges = sections.get(sectionName);
+            if (ranges == null) {
+                ranges = new ArrayList<int[]>(1);
+                sections.put(sectionName, ranges);
+            }
+            ranges.add(new int[] { sectionStart, end });
+        }
+
+        /**
+         * @return the offset of the <code>&gt;</code> closing a start tag
+         */
+        private int tagEnd(int from) throws InvalidPomException {
+            byte quote = 0;
+            for (int i = from; i < limit; i++) {
+                byte b = pom.get(i);
+                if (quote != 0) {
+                    if (b == quote) {
+                        quote = 0;
+                    }
+                } else if (b == '"' || b == '\'') {
+                    quote = b;
+                } else if (b == '>') {
+                    return i;
+                }
+            }
+            throw invalid("Unterminated tag at byte " + from);
+        }
+
+        /**
+         * Skips <code>&lt;!DOCTYPE ...&gt;</code>, including an internal
+         * subset in brackets.
+         */
+        private int skipDeclaration(int from) throws InvalidPomException {
+            int brackets = 0;
+            for (int i = from + 2; i < limit; i++) {
+                byte b = pom.get(i);
+                if (b == '[') {
+                    brackets++;
+                } else if (b == ']') {
+                    brackets--;
+                } else if (b == '>' && brackets == 0) {
+                    return i + 1;
+                }
+            }
+            throw invalid("Unterminated declaration at byte " + from);
+        }
+
+        private String localName(int start, int end) {
+            StringBuilder name = new StringBuilder(end - start);
+            for (int i = start; i < end; i++) {
+                char c = (char) (pom.get(i) & 0xFF);
+                if (c == ':') {
+                    name.setLength(0);
+                } else {
+                    name.append(c);
+                }
+            }
+            return name.toString();
+        }
+
+        private boolean isAsciiCompatible() {
+            if (limit < 2) {
+                return true;
+            }
+            byte first = pom.get(0);
+            byte second = pom.get(1);
+            // UTF-16 and UTF-32 byte order marks, or '<' encoded in two or
+            // more bytes
+            return !((first == (byte) 0xFE && second == (byte) 0xFF) || (first == (byte) 0xFF && second == (byte) 0xFE)
+                    || first == 0 || second == 0);
+        }
+
+        private boolean startsWith(int offset, String text) {
+            if (offset + text.length() > limit) {
+                return false;
+            }
+            for (int i = 0; i < text.length(); i++) {
+                if (pom.get(offset + i) != text.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int indexOf(int from, String text) throws InvalidPomException {
+            for (int i = from; i <= limit - text.length(); i++) {
+                if (startsWith(i, text)) {
+                    return i;
+                }
+            }
+            throw invalid("Expected '" + text + "' after byte " + from);
+        }
+
+        private static boolean isNameEnd(byte b) {
+            return b == ' ' || b == '\t' || b == '\r' || b == '\n' || b == '/' || b == '>';
+        }
+
+        private static InvalidPomException invalid(String message) {
+            return new InvalidPomException(message);
+        }
+    }
+}
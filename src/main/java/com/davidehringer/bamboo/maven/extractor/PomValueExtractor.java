@@ -15,10 +15,22 @@
  */
 package com.davidehringer.bamboo.maven.extractor;
 
+import java.util.Collection;
+import java.util.Map;
+
 /**
  * @author David Ehringer
  */
 public interface PomValueExtractor {
 
     String getValue(String property) throws NoSuchPropertyException;
+
+    /**
+     * Resolves several properties at once. Implementations resolve all of the
+     * properties in a single pass over the POM where they can.
+     * 
+     * @return the value of each property keyed by the property expression, in
+     *         the order the properties were given
+     */
+    Map<String, String> getValues(Collection<String> properties) throws NoSuchPropertyException;
 }
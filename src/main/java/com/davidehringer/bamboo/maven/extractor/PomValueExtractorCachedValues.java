@@ -0,0 +1,51 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Serves values that were extracted earlier, e.g. from a
+ * {@link PomValuesCache}, without touching the POM.
+ * 
+ * @author David Ehringer
+ */
+public class PomValueExtractorCachedValues implements PomValueExtractor {
+
+    private final Map<String, String> values;
+
+    public PomValueExtractorCachedValues(Map<String, String> values) {
+        this.values = values;
+    }
+
+    public String getValue(String property) throws NoSuchPropertyException {
+        String value = values.get(property);
+        if (value == null) {
+            throw new NoSuchPropertyException("No value was extracted for '" + property + "'");
+        }
+        return value;
+    }
+
+    public Map<String, String> getValues(Collection<String> properties) throws NoSuchPropertyException {
+        Map<String, String> result = new LinkedHashMap<String, String>();
+        for (String property : properties) {
+            result.put(property, getValue(property));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Extracts values from a POM outside of Bamboo, e.g. in place of
+ * <code>mvn help:evaluate -Dexpression=project.version</code> in scripts. It
+ * takes the same elements and options as the Bamboo task and only needs the
+ * extractor package, maven-model and plexus-utils on the classpath, so it
+ * starts quickly and works well with a class data sharing archive.
+ * <p>
+ * Each argument is either an element, whose value is printed on a line of its
+ * own, or <code>variable=element</code>, printed as
+ * <code>variable=value</code>. Without any elements the GAV is printed as
+ * <code>maven.groupId=...</code> etc.
+ * 
+ * @author David Ehringer
+ */
+public final class PomValueExtractorCli {
+
+    static final int EXIT_OK = 0;
+    static final int EXIT_FAILED = 1;
+    static final int EXIT_USAGE = 2;
+
+    private static final String DEFAULT_PREFIX = "maven.";
+    private static final String[] GAV_ELEMENTS = { "groupId", "artifactId", "version" };
+    private static final String SNAPSHOT = "-SNAPSHOT";
+
+    private static final String USAGE = "Usage: java -jar maven-pom-parser-plugin-cli.jar [options] "
+            + "[element | variable=element]...\n" //
+            + "  -f, --file <pom>     the POM to read, pom.xml by default\n" //
+            + "  --prefix <prefix>    prefix of the GAV variables, maven. by default\n" //
+            + "  --strip-snapshot     remove -SNAPSHOT from the GAV version\n" //
+            + "  --resolve-parents    inherit values from local parent POMs\n" //
+            + "  --interpolate        resolve ${...} expressions, env.* refers to the environment\n" //
+            + "  --lazy               only parse the sections of the POM the elements are in\n" //
+            + "  --reactor            also read every module, variables are qualified with its artifactId\n" //
+            + "  --threads <n>        parser threads for --reactor\n" //
+            + "  -h, --help           print this message\n" //
+            + "Elements use JavaBean syntax without the root project element, e.g. version,\n" //
+            + "properties(source.code.level) or dependencies[artifactId=junit].version";
+
+    private File pomFile = new File("pom.xml");
+    private String prefix = DEFAULT_PREFIX;
+    private boolean stripSnapshot;
+    private boolean resolveParents;
+    private boolean interpolate;
+    private boolean lazy;
+    private boolean reactor;
+    private int threads;
+    private boolean valuesOnly = true;
+    private final Map<String, String> mappings = new LinkedHashMap<String, String>();
+
+    private PomValueExtractorCli() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    /**
+     * @return the exit status
+     */
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        PomValueExtractorCli cli = new PomValueExtractorCli();
+        try {
+            if (!cli.parse(args)) {
+                out.println(USAGE);
+                return EXIT_OK;
+            }
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println(USAGE);
+            return EXIT_USAGE;
+        }
+        try {
+            cli.print(cli.extract(), out);
+            return EXIT_OK;
+        } catch (FileNotFoundException e) {
+            err.println("POM file not found at " + cli.pomFile.getAbsolutePath());
+        } catch (InvalidPomException e) {
+            err.println("Unable to read POM file: " + e.getMessage());
+        } catch (NoSuchPropertyException e) {
+            err.println(e.getMessage());
+        }
+        return EXIT_FAILED;
+    }
+
+    /**
+     * @return <code>false</code> if only help was asked for
+     */
+    private boolean parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("-h") || arg.equals("--help")) {
+                return false;
+            } else if (arg.equals("-f") || arg.equals("--file")) {
+                pomFile = new File(argument(args, ++i, arg));
+            } else if (arg.equals("--prefix")) {
+                prefix = argument(args, ++i, arg);
+                valuesOnly = false;
+            } else if (arg.equals("--strip-snapshot")) {
+                stripSnapshot = true;
+            } else if (arg.equals("--resolve-parents")) {
+                resolveParents = true;
+            } else if (arg.equals("--interpolate")) {
+                interpolate = true;
+            } else if (arg.equals("--lazy")) {
+                lazy = true;
+            } else if (arg.equals("--reactor")) {
+                reactor = true;
+                valuesOnly = false;
+            } else if (arg.equals("--threads")) {
+                threads = parseThreads(argument(args, ++i, arg));
+            } else if (arg.startsWith("-")) {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            } else {
+                addMapping(arg);
+            }
+        }
+        if (mappings.isEmpty()) {
+            valuesOnly = false;
+        }
+        return true;
+    }
+
+    private static String argument(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + option);
+        }
+        return args[index];
+    }
+
+    private static int parseThreads(String value) {
+        try {
+            int threads = Integer.parseInt(value.trim());
+            if (threads > 0) {
+                return threads;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("The number of threads must be a positive number: " + value);
+    }
+
+    /**
+     * Only an <code>=</code> outside of brackets separates a variable from its
+     * element, <code>dependencies[artifactId=junit].version</code> is an
+     * element.
+     */
+    private void addMapping(String arg) {
+        int depth = 0;
+        for (int i = 0; i < arg.length(); i++) {
+            char c = arg.charAt(i);
+            if (c == '(' || c == '[') {
+                depth++;
+            } else if (c == ')' || c == ']') {
+                depth--;
+            } else if (c == '=' && depth == 0) {
+                String variable = arg.substring(0, i).trim();
+                String element = arg.substring(i + 1).trim();
+                if (variable.length() == 0 || element.length() == 0) {
+                    throw new IllegalArgumentException("Expected variable=element but found " + arg);
+                }
+                mappings.put(variable, element);
+                valuesOnly = false;
+                return;
+            }
+        }
+        mappings.put(arg, arg);
+    }
+
+    private List<String> getElements() {
+        List<String> elements = new ArrayList<String>();
+        if (mappings.isEmpty()) {
+            for (String element : GAV_ELEMENTS) {
+                elements.add(element);
+            }
+        } else {
+            for (String element : mappings.values()) {
+                if (!elements.contains(element)) {
+                    elements.add(element);
+                }
+            }
+        }
+        return elements;
+    }
+
+    private ExtractionOptions getOptions() {
+        ExtractionOptions options = new ExtractionOptions();
+        options.setEffectiveModel(resolveParents);
+        options.setInterpolate(interpolate);
+        options.setLazyModel(lazy);
+        if (interpolate) {
+            Map<String, String> variables = new HashMap<String, String>();
+            for (Map.Entry<String, String> env : System.getenv().entrySet()) {
+                variables.put("env." + env.getKey(), env.getValue());
+            }
+            options.setExternalVariables(variables);
+        }
+        return options;
+    }
+
+    private List<ModuleValues> extract() throws FileNotFoundException {
+        List<String> elements = getElements();
+        if (reactor) {
+            PomParsingEngine engine = threads > 0 ? new PomParsingEngine(threads) : new PomParsingEngine();
+            return new ReactorExtractor(engine).extract(pomFile, elements, getOptions());
+        }
+        PomValueExtractor extractor = new PomValueExtractorFactory().create(pomFile, elements, getOptions());
+        List<ModuleValues> modules = new ArrayList<ModuleValues>(1);
+        modules.add(new ModuleValues(pomFile, null, extractor.getValues(elements)));
+        return modules;
+    }
+
+    private void print(List<ModuleValues> modules, PrintStream out) {
+        for (ModuleValues module : modules) {
+            Map<String, String> values = module.getValues();
+            if (mappings.isEmpty()) {
+                for (String element : GAV_ELEMENTS) {
+                    String value = valueOf(values.get(element));
+                    if (stripSnapshot && element.equals("version") && value.trim().endsWith(SNAPSHOT)) {
+                        value = value.replace(SNAPSHOT, "");
+                    }
+                    print(prefix + qualify(module, element), value, out);
+                }
+            } else {
+                for (Map.Entry<String, String> mapping : mappings.entrySet()) {
+                    print(qualify(module, mapping.getKey()), valueOf(values.get(mapping.getValue())), out);
+                }
+            }
+        }
+        out.flush();
+    }
+
+    private void print(String variable, String value, PrintStream out) {
+        if (valuesOnly) {
+            out.println(value);
+        } else {
+            out.println(variable + "=" + value);
+        }
+    }
+
+    private static String qualify(ModuleValues module, String name) {
+        if (module.getName() == null) {
+            return name;
+        }
+        return module.getName() + "." + name;
+    }
+
+    private static String valueOf(String value) {
+        return value == null ? "" : value;
+    }
+}
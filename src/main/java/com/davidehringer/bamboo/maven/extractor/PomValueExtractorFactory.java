@@ -0,0 +1,198 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Picks the cheapest {@link PomValueExtractor} able to resolve the requested
+ * properties.
+ * <p>
+ * When a {@link PomValuesCache} is given, properties that need the full Maven
+ * model are served from the cache if the POM content has been seen before.
+ * On a miss the bytes that were hashed are parsed, so the file is read once.
+ * Simple top-level elements are always streamed since reading the top of the
+ * POM is cheaper than hashing all of it.
+ * <p>
+ * In effective model mode, values inherited from local parent POMs are
+ * resolved through an {@link EffectiveModelBuilder}. The result depends on
+ * more than one file so it bypasses both the streaming extractor and the
+ * cache; parsed parents are memoized by the {@link ParentModelCache} instead.
+ * Interpolation also needs the full model, to look up properties and
+ * <code>project.*</code> paths, and depends on external variables, so it
+ * bypasses them too.
+ * <p>
+ * In lazy model mode, POMs are read with a {@link PomValueExtractorLazyModel}
+ * which only parses the sections the requested properties need.
+ * <p>
+ * With a {@link FingerprintStore}, values extracted by an earlier build are
+ * reused as long as the POM and, in effective model mode, its parents are
+ * unchanged.
+ * 
+ * @author David Ehringer
+ */
+public class PomValueExtractorFactory {
+
+    private final PomValuesCache cache;
+    // The parsing engine shares one factory between its threads
+    private final AtomicInteger cacheHits = new AtomicInteger();
+    private final AtomicInteger cacheMisses = new AtomicInteger();
+
+    public PomValueExtractorFactory() {
+        this(null);
+    }
+
+    public PomValueExtractorFactory(PomValuesCache cache) {
+        this.cache = cache;
+    }
+
+    public PomValueExtractor create(File pomFile, Collection<String> properties) throws FileNotFoundException,
+            InvalidPomException {
+        return create(pomFile, properties, new ExtractionOptions());
+    }
+
+    public PomValueExtractor create(File pomFile, Collection<String> properties, ExtractionOptions options)
+            throws FileNotFoundException, InvalidPomException {
+        if (options.isModelRequired()) {
+            return createFromModel(pomFile, options);
+        }
+        if (PomValueExtractorStax.supports(properties)) {
+            return new PomValueExtractorStax(pomFile, properties);
+        }
+        if (cache == null) {
+            return createFromRawModel(pomFile, options);
+        }
+        return create(pomFile, MavenModelReader.buffer(pomFile), properties, options);
+    }
+
+    /**
+     * Extracts from bytes already read, for options that do not need the full
+     * model.
+     */
+    private PomValueExtractor create(File pomFile, ByteBuffer pom, Collection<String> properties,
+            ExtractionOptions options) throws InvalidPomException {
+        if (PomValueExtractorStax.supports(properties)) {
+            return new PomValueExtractorStax(pom, properties);
+        }
+        if (cache == null) {
+            return createFromRawModel(pomFile, pom, options);
+        }
+        String key = cache.key(pomFile, pom, properties);
+        Map<String, String> values = cache.get(key);
+        if (values == null) {
+            cacheMisses.incrementAndGet();
+            values = createFromRawModel(pomFile, pom, options).getValues(properties);
+            cache.put(key, values);
+        } else {
+            cacheHits.incrementAndGet();
+        }
+        return new PomValueExtractorCachedValues(values);
+    }
+
+    /**
+     * @return how many POMs created by this factory were served from the
+     *         {@link PomValuesCache}. The cache's own counts cover every
+     *         factory in the JVM.
+     */
+    public int getCacheHits() {
+        return cacheHits.get();
+    }
+
+    /**
+     * @return how many POMs created by this factory were looked up in the
+     *         {@link PomValuesCache} but had to be parsed
+     */
+    public int getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    /**
+     * Like {@link #create(File, Collection, ExtractionOptions)}, but reuses
+     * the values remembered by the store if none of the POM files they were
+     * extracted from changed. The files are fingerprinted from the same bytes
+     * the values are extracted from. Interpolated values also depend on
+     * variables outside the POM, so they are never stored.
+     */
+    public PomValueExtractor create(File pomFile, Collection<String> properties, ExtractionOptions options,
+            FingerprintStore store) throws FileNotFoundException, InvalidPomException {
+        if (store == null || options.isInterpolate()) {
+            return create(pomFile, properties, options);
+        }
+        String key = fingerprintKey(pomFile, properties, options);
+        Map<String, String> values = store.get(key);
+        if (values == null) {
+            List<FileFingerprint> fingerprints;
+            if (options.isEffectiveModel()) {
+                EffectiveModelBuilder builder = new EffectiveModelBuilder();
+                values = new PomValueExtractorMavenModel(builder.build(pomFile)).getValues(properties);
+                fingerprints = builder.getFingerprints();
+            } else {
+                long lastModified = pomFile.lastModified();
+                ByteBuffer pom = MavenModelReader.buffer(pomFile);
+                values = create(pomFile, pom, properties, options).getValues(properties);
+                fingerprints = Collections.singletonList(new FileFingerprint(pomFile, lastModified, pom));
+            }
+            store.put(key, fingerprints, values);
+        }
+        return new PomValueExtractorCachedValues(values);
+    }
+
+    private String fingerprintKey(File pomFile, Collection<String> properties, ExtractionOptions options) {
+        StringBuilder key = new StringBuilder(pomFile.getAbsolutePath());
+        key.append(options.isEffectiveModel() ? "\neffective" : "\nraw");
+        for (String property : properties) {
+            key.append('\n').append(property);
+        }
+        return key.toString();
+    }
+
+    private PomValueExtractor createFromRawModel(File pomFile, ExtractionOptions options)
+            throws FileNotFoundException, InvalidPomException {
+        if (options.isLazyModel()) {
+            return new PomValueExtractorLazyModel(pomFile);
+        }
+        return new PomValueExtractorMavenModel(pomFile);
+    }
+
+    private PomValueExtractor createFromRawModel(File pomFile, ByteBuffer pom, ExtractionOptions options)
+            throws InvalidPomException {
+        if (options.isLazyModel()) {
+            return new PomValueExtractorLazyModel(pomFile, pom);
+        }
+        return new PomValueExtractorMavenModel(MavenModelReader.read(pom, pomFile));
+    }
+
+    private PomValueExtractor createFromModel(File pomFile, ExtractionOptions options) throws FileNotFoundException,
+            InvalidPomException {
+        PomValueExtractor extractor;
+        if (options.isEffectiveModel()) {
+            extractor = new PomValueExtractorMavenModel(new EffectiveModelBuilder().build(pomFile));
+        } else {
+            extractor = new PomValueExtractorMavenModel(pomFile);
+        }
+        if (options.isInterpolate()) {
+            extractor = new PomValueExtractorInterpolating(extractor, options.getExternalVariables());
+        }
+        return extractor;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Interpolates the values of another extractor. One
+ * {@link PropertyInterpolator} is shared by all calls so each expression is
+ * only resolved once. The time spent interpolating is accumulated for
+ * reporting.
+ * 
+ * @author David Ehringer
+ */
+public class PomValueExtractorInterpolating implements PomValueExtractor {
+
+    private final PomValueExtractor delegate;
+    private final PropertyInterpolator interpolator;
+    private long interpolationNanos;
+
+    public PomValueExtractorInterpolating(PomValueExtractor delegate, Map<String, String> externalVariables) {
+        this.delegate = delegate;
+        this.interpolator = new PropertyInterpolator(delegate, externalVariables);
+    }
+
+    public String getValue(String property) throws NoSuchPropertyException {
+        String value = delegate.getValue(property);
+        long start = System.nanoTime();
+        try {
+            return interpolator.interpolate(value);
+        } finally {
+            interpolationNanos += System.nanoTime() - start;
+        }
+    }
+
+    public Map<String, String> getValues(Collection<String> properties) throws NoSuchPropertyException {
+        Map<String, String> values = delegate.getValues(properties);
+        long start = System.nanoTime();
+        try {
+            Map<String, String> result = new LinkedHashMap<String, String>();
+            for (Map.Entry<String, String> value : values.entrySet()) {
+                result.put(value.getKey(), interpolator.interpolate(value.getValue()));
+            }
+            return result;
+        } finally {
+            interpolationNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * @return the total time spent resolving expressions, excluding the time
+     *         spent by the delegate
+     */
+    public long getInterpolationNanos() {
+        return interpolationNanos;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.maven.model.Model;
+
+/**
+ * Builds the Maven {@link Model} of a POM one top-level section at a time.
+ * The POM is scanned for its {@link PomSections} up front, and a section such
+ * as <code>dependencyManagement</code> or <code>profiles</code> is only parsed
+ * once a requested property path reaches into it. Memory and CPU therefore
+ * grow with what is queried rather than with the size of the POM.
+ * <p>
+ * A path that starts with a computed property rather than a section, such as
+ * <code>id</code>, which combines the coordinates, may read any section, so
+ * it has every section parsed.
+ * <p>
+ * Sections that are never requested are never parsed, so errors in them,
+ * which {@link PomValueExtractorMavenModel} would report, go unnoticed.
+ * 
+ * @author David Ehringer
+ */
+public class PomValueExtractorLazyModel implements PomValueExtractor {
+
+    private final File pomFile;
+    private final PomSections sections;
+    private final Model model;
+    private final PomValueExtractorMavenModel extractor;
+    private final Set<String> parsedSections = new HashSet<String>();
+
+    public PomValueExtractorLazyModel(File pomFile) throws FileNotFoundException, InvalidPomException {
+        this(pomFile, MavenModelReader.buffer(pomFile));
+    }
+
+    /**
+     * @param pom
+     *            the bytes of the POM file, which are not modified
+     */
+    PomValueExtractorLazyModel(File pomFile, ByteBuffer pom) throws InvalidPomException {
+        this.pomFile = pomFile;
+        this.sections = PomSections.scan(pom);
+        if (sections == null) {
+            model = MavenModelReader.read(pom, pomFile);
+        } else {
+            model = new Model();
+            model.setPomFile(pomFile);
+        }
+        extractor = new PomValueExtractorMavenModel(model);
+    }
+
+    public String getValue(String property) throws NoSuchPropertyException {
+        return getValues(Collections.singletonList(property)).get(property);
+    }
+
+    public synchronized Map<String, String> getValues(Collection<String> properties)
+            throws NoSuchPropertyException {
+        if (sections != null) {
+            parse(properties);
+        }
+        return extractor.getValues(properties);
+    }
+
+    /**
+     * @return the sections parsed into the model so far
+     */
+    synchronized Set<String> getParsedSections() {
+        return Collections.unmodifiableSet(new HashSet<String>(parsedSections));
+    }
+
+    /**
+     * Parses the sections the properties need that have not been parsed yet,
+     * all in one pass, and adds them to the model.
+     */
+    private void parse(Collection<String> properties) throws NoSuchPropertyException {
+        Set<String> required = new LinkedHashSet<String>();
+        for (String property : properties) {
+            String section = section(property);
+            if (sections.contains(section)) {
+                required.add(section);
+            } else if (accessors(section) == null) {
+                required.addAll(sections.getNames());
+            }
+        }
+        required.removeAll(parsedSections);
+        if (required.isEmpty()) {
+            return;
+        }
+        Model parsed = MavenModelReader.read(sections.open(required), pomFile);
+        for (String section : required) {
+            copy(section, parsed);
+        }
+        parsedSections.addAll(required);
+    }
+
+    /**
+     * @return the element name of the first segment, e.g.
+     *         <code>dependencies</code> for
+     *         <code>dependencies[artifactId=junit].version</code>
+     */
+    private static String section(String property) throws NoSuchPropertyException {
+        String segment = PropertyPath.segments(property).get(0);
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (c == '[' || c == '(') {
+                return segment.substring(0, i);
+            }
+        }
+        return segment;
+    }
+
+    /**
+     * Model properties are named after their POM elements, so a section is
+     * copied with its getter and setter.
+     */
+    private void copy(String section, Model parsed) {
+        Method[] accessors = accessors(section);
+        if (accessors == null) {
+            // Not part of the model, the reader ignored it as well
+            return;
+        }
+        try {
+            accessors[1].invoke(model, accessors[0].invoke(parsed));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * @return the getter and setter of a section, or <code>null</code> if
+     *         the model has no such section, as for computed properties
+     */
+    private static Method[] accessors(String section) {
+        if (section.length() == 0) {
+            return null;
+        }
+        String name = Character.toUpperCase(section.charAt(0)) + section.substring(1);
+        try {
+            Method getter = Model.class.getMethod("get" + name);
+            return new Method[] { getter, Model.class.getMethod("set" + name, getter.getReturnType()) };
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -17,56 +17,92 @@ package com.davidehringer.bamboo.maven.extractor;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
-import org.apache.commons.beanutils.PropertyUtils;
 import org.apache.maven.model.Model;
-import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
-import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 
 /**
  * @author David Ehringer
  */
 public class PomValueExtractorMavenModel implements PomValueExtractor {
 
-    private Model model;
+    private final Model model;
+    private final ModelIndex index = new ModelIndex();
 
     public PomValueExtractorMavenModel(File pomFile) throws FileNotFoundException, InvalidPomException {
-        FileReader reader = new FileReader(pomFile);
-        MavenXpp3Reader mavenreader = new MavenXpp3Reader();
-        try {
-            model = mavenreader.read(reader);
-        } catch (IOException e) {
-            throw new InvalidPomException(e);
-        } catch (XmlPullParserException e) {
-            throw new InvalidPomException(e);
-        } finally {
-            try {
-                if (reader != null) {
-                    reader.close();
-                }
-            } catch (IOException e) {
-                // ignore
-            }
-        }
-        model.setPomFile(pomFile);
+        this(MavenModelReader.read(pomFile));
+    }
+
+    public PomValueExtractorMavenModel(Model model) {
+        this.model = model;
     }
 
     public String getValue(String property) throws NoSuchPropertyException {
-        try {
-            Object value = PropertyUtils.getProperty(model, property);
-            if (value == null) {
-                return "";
+        return getValues(Collections.singletonList(property)).get(property);
+    }
+
+    /**
+     * Resolves all of the properties in one walk of the model. Properties that
+     * share a prefix, such as <code>parent.groupId</code> and
+     * <code>parent.version</code>, only resolve the shared part once. Lists
+     * queried with selectors are indexed once and the index is kept for as
+     * long as this extractor.
+     */
+    public Map<String, String> getValues(Collection<String> properties) throws NoSuchPropertyException {
+        PathNode root = new PathNode(null);
+        for (String property : properties) {
+            root.add(PropertyPathCompiler.compile(property), 0);
+        }
+        Map<String, String> resolved = new LinkedHashMap<String, String>();
+        resolve(root, model, resolved);
+
+        Map<String, String> result = new LinkedHashMap<String, String>();
+        for (String property : properties) {
+            result.put(property, resolved.get(property));
+        }
+        return result;
+    }
+
+    private void resolve(PathNode node, Object bean, Map<String, String> resolved) {
+        for (String property : node.properties) {
+            resolved.put(property, bean == null ? "" : bean.toString());
+        }
+        for (PathNode child : node.children.values()) {
+            Object value = bean == null ? null : CompiledPropertyPath.apply(child.accessor, bean, index);
+            resolve(child, value, resolved);
+        }
+    }
+
+    /**
+     * A node in the prefix tree of requested property paths.
+     */
+    private static class PathNode {
+
+        private final PropertyAccessor accessor;
+        private final Map<String, PathNode> children = new LinkedHashMap<String, PathNode>();
+        private final List<String> properties = new ArrayList<String>(1);
+
+        PathNode(PropertyAccessor accessor) {
+            this.accessor = accessor;
+        }
+
+        void add(CompiledPropertyPath path, int index) {
+            if (index == path.size()) {
+                properties.add(path.getExpression());
+                return;
+            }
+            String segment = path.getSegment(index);
+            PathNode child = children.get(segment);
+            if (child == null) {
+                child = new PathNode(path.getAccessor(index));
+                children.put(segment, child);
             }
-            return value.toString();
-        } catch (IllegalAccessException e) {
-            throw new NoSuchPropertyException(e);
-        } catch (InvocationTargetException e) {
-            throw new NoSuchPropertyException(e);
-        } catch (NoSuchMethodException e) {
-            throw new NoSuchPropertyException(e);
+            child.add(path, index + 1);
         }
     }
 }
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Streams the POM with StAX and only reads simple, top-level elements such as
+ * <code>groupId</code>, <code>artifactId</code> and <code>version</code>.
+ * Parsing stops as soon as every requested element has been seen, so the
+ * rest of the POM (dependency management, profiles, etc.) is never read.
+ * 
+ * @author David Ehringer
+ */
+public class PomValueExtractorStax implements PomValueExtractor {
+
+    private static final String PROJECT_ELEMENT = "project";
+
+    private static final Set<String> SUPPORTED_ELEMENTS = Collections.unmodifiableSet(new HashSet<String>(
+            Arrays.asList("modelVersion", "groupId", "artifactId", "version", "packaging", "name", "description",
+                    "url", "inceptionYear")));
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = createInputFactory();
+
+    private final Set<String> requestedElements;
+    private final Map<String, String> values = new HashMap<String, String>();
+
+    public PomValueExtractorStax(File pomFile, Collection<String> elements) throws FileNotFoundException,
+            InvalidPomException {
+        this(checked(elements), new BufferedInputStream(new FileInputStream(pomFile)));
+    }
+
+    /**
+     * Reads the bytes between the buffer's position and limit without
+     * modifying the buffer.
+     */
+    PomValueExtractorStax(ByteBuffer pom, Collection<String> elements) throws InvalidPomException {
+        this(checked(elements), PomInput.open(pom));
+    }
+
+    private PomValueExtractorStax(Collection<String> elements, InputStream input) throws InvalidPomException {
+        requestedElements = new HashSet<String>(elements);
+        try {
+            read(input);
+        } catch (XMLStreamException e) {
+            throw new InvalidPomException(e);
+        } finally {
+            try {
+                input.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * @return <code>true</code> if every element is a simple, top-level POM
+     *         element that can be extracted without building the full model
+     */
+    public static boolean supports(Collection<String> elements) {
+        if (elements == null || elements.isEmpty()) {
+            return false;
+        }
+        return SUPPORTED_ELEMENTS.containsAll(elements);
+    }
+
+    private static Collection<String> checked(Collection<String> elements) {
+        if (!supports(elements)) {
+            throw new IllegalArgumentException("Only simple top-level elements can be streamed: " + elements);
+        }
+        return elements;
+    }
+
+    private void read(InputStream input) throws XMLStreamException {
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(input);
+        try {
+            Set<String> remaining = new HashSet<String>(requestedElements);
+            int depth = 0;
+            while (!remaining.isEmpty() && reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                    String name = reader.getLocalName();
+                    if (depth == 1 && !PROJECT_ELEMENT.equals(name)) {
+                        throw new InvalidPomException("Expected root element '" + PROJECT_ELEMENT + "' but found '"
+                                + name + "'");
+                    }
+                    if (depth == 2 && remaining.remove(name)) {
+                        // getElementText() consumes the matching end element
+                        values.put(name, reader.getElementText().trim());
+                        depth--;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    public String getValue(String property) throws NoSuchPropertyException {
+        if (!requestedElements.contains(property)) {
+            throw new NoSuchPropertyException("Element '" + property + "' was not requested when the POM was read");
+        }
+        String value = values.get(property);
+        if (value == null) {
+            return "";
+        }
+        return value;
+    }
+
+    public Map<String, String> getValues(Collection<String> properties) throws NoSuchPropertyException {
+        Map<String, String> result = new LinkedHashMap<String, String>();
+        for (String property : properties) {
+            result.put(property, getValue(property));
+        }
+        return result;
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        return factory;
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, least recently used cache of extracted values keyed by the
+ * content hash of the POM and the requested properties. One instance is
+ * shared by every task running in the same JVM (agent), so a POM that has
+ * not changed between builds is never parsed twice.
+ * <p>
+ * Values of <code>pomFile</code> and <code>projectDirectory</code> come from
+ * where the POM is rather than what it contains, so when they are requested
+ * the path of the POM is part of the key too. Other checkouts of the same POM
+ * then get their own entry.
+ * 
+ * @author David Ehringer
+ */
+public class PomValuesCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    private static final PomValuesCache SHARED = new PomValuesCache(DEFAULT_MAX_ENTRIES);
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Map<String, Map<String, String>> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public PomValuesCache(final int maxEntries) {
+        entries = new LinkedHashMap<String, Map<String, String>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Map<String, String>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public static PomValuesCache getInstance() {
+        return SHARED;
+    }
+
+    /**
+     * @return the cache key for the given POM content and properties
+     */
+    public String key(File pomFile, Collection<String> properties) throws FileNotFoundException,
+            InvalidPomException {
+        return key(pomFile, MavenModelReader.buffer(pomFile), properties);
+    }
+
+    /**
+     * @return the cache key for the POM bytes between the buffer's position
+     *         and limit and the properties
+     */
+    String key(File pomFile, ByteBuffer pom, Collection<String> properties) {
+        StringBuilder key = new StringBuilder(contentHash(pom));
+        boolean pathDerived = false;
+        for (String property : properties) {
+            key.append('\n').append(property);
+            pathDerived |= isPathDerived(property);
+        }
+        if (pathDerived) {
+            // The model is given the file as is, so its values are too
+            key.append('\n').append(pomFile.getPath());
+        }
+        return key.toString();
+    }
+
+    private static boolean isPathDerived(String property) {
+        int end = 0;
+        while (end < property.length() && Character.isJavaIdentifierPart(property.charAt(end))) {
+            end++;
+        }
+        if (end == 0) {
+            return false;
+        }
+        // Getters are looked up with the first letter capitalized
+        String name = Character.toLowerCase(property.charAt(0)) + property.substring(1, end);
+        return name.equals("pomFile") || name.equals("projectDirectory");
+    }
+
+    /**
+     * @return the cached values or <code>null</code> if there are none
+     */
+    public Map<String, String> get(String key) {
+        Map<String, String> values;
+        synchronized (entries) {
+            values = entries.get(key);
+        }
+        if (values == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return values;
+    }
+
+    public void put(String key, Map<String, String> values) {
+        Map<String, String> copy = Collections.unmodifiableMap(new LinkedHashMap<String, String>(values));
+        synchronized (entries) {
+            entries.put(key, copy);
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    static String contentHash(File pomFile) throws FileNotFoundException, InvalidPomException {
+        return contentHash(MavenModelReader.buffer(pomFile));
+    }
+
+    /**
+     * Hashes the bytes between the buffer's position and limit without
+     * modifying the buffer, so the same bytes can be parsed afterwards.
+     */
+    static String contentHash(ByteBuffer pom) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update(pom.duplicate());
+        byte[] hash = digest.digest();
+        char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[hash[i] & 0xf];
+        }
+        return new String(hex);
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+/**
+ * Reads one segment of a property path, e.g. <code>parent</code>,
+ * <code>dependencies[3]</code>, <code>dependencies[artifactId=junit]</code>
+ * or <code>properties(source.code.level)</code>, from a bean.
+ * 
+ * @author David Ehringer
+ */
+interface PropertyAccessor {
+
+    /**
+     * @param bean
+     *            never <code>null</code>
+     * @param index
+     *            the indexes of the model the bean belongs to
+     * @return the value of the segment, <code>null</code> if it is not set
+     */
+    Object get(Object bean, ModelIndex index) throws NoSuchPropertyException;
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves <code>${...}</code> expressions in extracted values. An expression
+ * is looked up, in order, as
+ * <ol>
+ * <li><code>project.*</code> or <code>pom.*</code>: a path into the POM, e.g.
+ * <code>${project.version}</code></li>
+ * <li>a POM property, including properties inherited from parents when the
+ * effective model is used</li>
+ * <li>an external variable, e.g. <code>${env.HOME}</code>,
+ * <code>${bamboo.buildNumber}</code> or a plain Bamboo variable name</li>
+ * </ol>
+ * Resolved values are interpolated recursively. Every expression is resolved
+ * at most once per interpolator, and cycles are reported as a
+ * {@link CyclicReferenceException}. Expressions that cannot be resolved are left
+ * as they are.
+ * 
+ * @author David Ehringer
+ */
+public class PropertyInterpolator {
+
+    private static final String START = "${";
+    private static final String END = "}";
+
+    private final PomValueExtractor pom;
+    private final Map<String, String> externalVariables;
+    private final Map<String, String> resolved = new HashMap<String, String>();
+    private final Set<String> resolving = new LinkedHashSet<String>();
+
+    public PropertyInterpolator(PomValueExtractor pom, Map<String, String> externalVariables) {
+        this.pom = pom;
+        this.externalVariables = externalVariables;
+    }
+
+    public String interpolate(String value) throws InvalidPomException {
+        if (value == null || value.indexOf(START) < 0) {
+            return value;
+        }
+        StringBuilder result = new StringBuilder(value.length());
+        int position = 0;
+        while (position < value.length()) {
+            int start = value.indexOf(START, position);
+            int end = start < 0 ? -1 : value.indexOf(END, start + START.length());
+            if (start < 0 || end < 0) {
+                result.append(value, position, value.length());
+                break;
+            }
+            result.append(value, position, start);
+            String expression = value.substring(start + START.length(), end);
+            String replacement = resolve(expression);
+            if (replacement == null) {
+                result.append(value, start, end + END.length());
+            } else {
+                result.append(replacement);
+            }
+            position = end + END.length();
+        }
+        return result.toString();
+    }
+
+    private String resolve(String expression) throws InvalidPomException {
+        if (resolved.containsKey(expression)) {
+            return resolved.get(expression);
+        }
+        if (!resolving.add(expression)) {
+            throw new CyclicReferenceException(cycle(expression));
+        }
+        try {
+            String raw = lookup(expression);
+            String value = raw == null ? null : interpolate(raw);
+            resolved.put(expression, value);
+            return value;
+        } finally {
+            resolving.remove(expression);
+        }
+    }
+
+    private String lookup(String expression) {
+        String path = projectPath(expression);
+        if (path != null) {
+            return pomValue(path);
+        }
+        String property = pomValue("properties(" + expression + ")");
+        if (property != null) {
+            return property;
+        }
+        return externalVariables.get(expression);
+    }
+
+    private String projectPath(String expression) {
+        if (expression.startsWith("project.")) {
+            return expression.substring("project.".length());
+        }
+        if (expression.startsWith("pom.")) {
+            return expression.substring("pom.".length());
+        }
+        return null;
+    }
+
+    /**
+     * @return the value or <code>null</code> if the POM has no such value
+     */
+    private String pomValue(String path) {
+        try {
+            String value = pom.getValue(path);
+            return value.length() == 0 ? null : value;
+        } catch (NoSuchPropertyException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the expressions from the first occurrence of the expression,
+     *         leaving out those that merely lead into the cycle
+     */
+    private List<String> cycle(String expression) {
+        List<String> cycle = new ArrayList<String>();
+        for (String name : resolving) {
+            if (!cycle.isEmpty() || name.equals(expression)) {
+                cycle.add(name);
+            }
+        }
+        cycle.add(expression);
+        return cycle;
+    }
+}
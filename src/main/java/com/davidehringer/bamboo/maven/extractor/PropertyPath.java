@@ -0,0 +1,67 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Splits a JavaBean property expression such as
+ * <code>properties(source.code.level)</code> or
+ * <code>dependencies[3].version</code> into its nested segments. Periods
+ * inside mapped <code>(...)</code> or indexed <code>[...]</code> keys do not
+ * start a new segment.
+ * 
+ * @author David Ehringer
+ */
+final class PropertyPath {
+
+    private PropertyPath() {
+    }
+
+    static List<String> segments(String expression) throws NoSuchPropertyException {
+        if (expression == null || expression.length() == 0) {
+            throw new NoSuchPropertyException("Empty property expression");
+        }
+        List<String> segments = new ArrayList<String>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (c == '(' || c == '[') {
+                depth++;
+            } else if (c == ')' || c == ']') {
+                depth--;
+            } else if (c == '.' && depth == 0) {
+                segments.add(segment(expression, start, i));
+                start = i + 1;
+            }
+        }
+        if (depth != 0) {
+            throw new NoSuchPropertyException("Unbalanced brackets in property expression '" + expression + "'");
+        }
+        segments.add(segment(expression, start, expression.length()));
+        return Collections.unmodifiableList(segments);
+    }
+
+    private static String segment(String expression, int start, int end) {
+        if (start == end) {
+            throw new NoSuchPropertyException("Empty segment in property expression '" + expression + "'");
+        }
+        return expression.substring(start, end);
+    }
+}
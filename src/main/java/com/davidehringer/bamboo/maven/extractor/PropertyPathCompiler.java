@@ -0,0 +1,381 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Compiles JavaBean property expressions (the syntax previously handled by
+ * commons-beanutils) into {@link CompiledPropertyPath}s. Each segment's getter
+ * is looked up once per bean class and then reused, so evaluating a compiled
+ * path does no introspection. Compiled paths are cached per expression string.
+ * <p>
+ * Supported segment forms are <code>name</code>, <code>name[index]</code> and
+ * <code>name(key)</code>. A simple <code>name</code> applied to a
+ * {@link Map} (e.g. <code>properties.myProperty</code>) is a key lookup.
+ * <p>
+ * Lists can also be queried with <code>name[property=value]</code>, which
+ * selects the first element whose property has the value, e.g.
+ * <code>dependencies[artifactId=junit].version</code>,
+ * <code>plugins[key=org.apache.maven.plugins:maven-compiler-plugin]</code> or
+ * <code>profiles[id=release]</code>. Several conditions are separated by
+ * commas, e.g. <code>dependencies[groupId=junit,artifactId=junit]</code>.
+ * Selectors use a {@link ModelIndex} rather than scanning the list. The
+ * wildcard <code>name[*]</code> selects every element of a list, array or map
+ * and the rest of the path is applied to each of them, see {@link ValueList}.
+ * 
+ * @author David Ehringer
+ */
+final class PropertyPathCompiler {
+
+    private static final int MAX_CACHED_EXPRESSIONS = 1024;
+
+    private static final ConcurrentMap<String, CompiledPropertyPath> PATHS = new ConcurrentHashMap<String, CompiledPropertyPath>();
+    private static final ConcurrentMap<String, PropertyAccessor> SEGMENTS = new ConcurrentHashMap<String, PropertyAccessor>();
+
+    private PropertyPathCompiler() {
+    }
+
+    static CompiledPropertyPath compile(String expression) throws NoSuchPropertyException {
+        CompiledPropertyPath path = PATHS.get(expression);
+        if (path == null) {
+            List<String> segments = PropertyPath.segments(expression);
+            List<PropertyAccessor> accessors = new ArrayList<PropertyAccessor>(segments.size());
+            for (String segment : segments) {
+                accessors.add(compileSegment(segment));
+            }
+            path = new CompiledPropertyPath(expression, segments, Collections.unmodifiableList(accessors));
+            if (PATHS.size() >= MAX_CACHED_EXPRESSIONS) {
+                // Expressions come from task configuration so this only
+                // guards against unbounded growth from unusual callers.
+                PATHS.clear();
+            }
+            PATHS.put(expression, path);
+        }
+        return path;
+    }
+
+    private static PropertyAccessor compileSegment(String segment) throws NoSuchPropertyException {
+        PropertyAccessor accessor = SEGMENTS.get(segment);
+        if (accessor == null) {
+            accessor = parseSegment(segment);
+            if (SEGMENTS.size() >= MAX_CACHED_EXPRESSIONS) {
+                SEGMENTS.clear();
+            }
+            SEGMENTS.put(segment, accessor);
+        }
+        return accessor;
+    }
+
+    private static PropertyAccessor parseSegment(String segment) throws NoSuchPropertyException {
+        char last = segment.charAt(segment.length() - 1);
+        if (last == ']') {
+            int open = segment.indexOf('[');
+            String name = propertyName(segment, open);
+            String index = segment.substring(open + 1, segment.length() - 1);
+            if (index.trim().equals("*")) {
+                return new WildcardAccessor(name);
+            }
+            if (index.indexOf('=') >= 0) {
+                return new SelectorAccessor(name, segment, index);
+            }
+            try {
+                return new IndexedAccessor(name, Integer.parseInt(index.trim()));
+            } catch (NumberFormatException e) {
+                throw new NoSuchPropertyException("Invalid index '" + index + "' in '" + segment + "'");
+            }
+        }
+        if (last == ')') {
+            int open = segment.indexOf('(');
+            String name = propertyName(segment, open);
+            return new MappedAccessor(name, segment.substring(open + 1, segment.length() - 1));
+        }
+        if (segment.indexOf('[') >= 0 || segment.indexOf('(') >= 0) {
+            throw new NoSuchPropertyException("Invalid property segment '" + segment + "'");
+        }
+        return new SimpleAccessor(segment);
+    }
+
+    private static String propertyName(String segment, int open) {
+        if (open <= 0) {
+            throw new NoSuchPropertyException("Invalid property segment '" + segment + "'");
+        }
+        return segment.substring(0, open);
+    }
+
+    /**
+     * Reads a JavaBean property via its getter, caching the resolved
+     * {@link Method} for each bean class it is applied to.
+     */
+    private static class SimpleAccessor implements PropertyAccessor {
+
+        private final String name;
+        private final String capitalized;
+        private final ConcurrentMap<Class<?>, Method> getters = new ConcurrentHashMap<Class<?>, Method>(4);
+
+        SimpleAccessor(String name) {
+            this.name = name;
+            this.capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        }
+
+        public Object get(Object bean, ModelIndex index) throws NoSuchPropertyException {
+            if (bean instanceof Map<?, ?>) {
+                return ((Map<?, ?>) bean).get(name);
+            }
+            return invoke(getter(bean.getClass()), bean);
+        }
+
+        Object getProperty(Object bean) throws NoSuchPropertyException {
+            return invoke(getter(bean.getClass()), bean);
+        }
+
+        private Method getter(Class<?> type) throws NoSuchPropertyException {
+            Method getter = getters.get(type);
+            if (getter == null) {
+                getter = findGetter(type);
+                getters.put(type, getter);
+            }
+            return getter;
+        }
+
+        private Method findGetter(Class<?> type) throws NoSuchPropertyException {
+            Method method = findMethod(type, "get" + capitalized);
+            if (method == null) {
+                method = findMethod(type, "is" + capitalized);
+                if (method != null && method.getReturnType() != boolean.class) {
+                    method = null;
+                }
+            }
+            if (method == null || method.getReturnType() == void.class) {
+                throw new NoSuchPropertyException("Unknown property '" + name + "' on class '" + type.getName()
+                        + "'");
+            }
+            return method;
+        }
+
+        String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * Reads an element of a {@link List} or array property.
+     */
+    private static class IndexedAccessor implements PropertyAccessor {
+
+        private final SimpleAccessor property;
+        private final int position;
+
+        IndexedAccessor(String name, int position) {
+            this.property = new SimpleAccessor(name);
+            this.position = position;
+        }
+
+        public Object get(Object bean, ModelIndex index) throws NoSuchPropertyException {
+            Object value = property.getProperty(bean);
+            if (value == null) {
+                return null;
+            }
+            if (value instanceof List<?>) {
+                List<?> list = (List<?>) value;
+                if (position < 0 || position >= list.size()) {
+                    throw outOfBounds(list.size());
+                }
+                return list.get(position);
+            }
+            if (value.getClass().isArray()) {
+                int length = Array.getLength(value);
+                if (position < 0 || position >= length) {
+                    throw outOfBounds(length);
+                }
+                return Array.get(value, position);
+            }
+            throw new NoSuchPropertyException("Property '" + property.getName() + "' is not indexed");
+        }
+
+        private NoSuchPropertyException outOfBounds(int size) {
+            return new NoSuchPropertyException("Index " + position + " is out of bounds for property '"
+                    + property.getName() + "' with " + size + " elements");
+        }
+    }
+
+    /**
+     * Reads a keyed value either through a <code>getName(String)</code> method
+     * or from a {@link Map} returned by <code>getName()</code>.
+     */
+    private static class MappedAccessor implements PropertyAccessor {
+
+        private final String name;
+        private final String key;
+        private final SimpleAccessor property;
+        private final ConcurrentMap<Class<?>, Method> keyedGetters = new ConcurrentHashMap<Class<?>, Method>(4);
+        private final ConcurrentMap<Class<?>, Boolean> withoutKeyedGetter = new ConcurrentHashMap<Class<?>, Boolean>(
+                4);
+
+        MappedAccessor(String name, String key) {
+            this.name = name;
+            this.key = key;
+            this.property = new SimpleAccessor(name);
+        }
+
+        public Object get(Object bean, ModelIndex index) throws NoSuchPropertyException {
+            Class<?> type = bean.getClass();
+            Method keyedGetter = keyedGetters.get(type);
+            if (keyedGetter == null && !withoutKeyedGetter.containsKey(type)) {
+                keyedGetter = findMethod(type, "get" + Character.toUpperCase(name.charAt(0)) + name.substring(1),
+                        String.class);
+                if (keyedGetter == null) {
+                    withoutKeyedGetter.put(type, Boolean.TRUE);
+                } else {
+                    keyedGetters.put(type, keyedGetter);
+                }
+            }
+            if (keyedGetter != null) {
+                return invoke(keyedGetter, bean, key);
+            }
+            Object value = property.getProperty(bean);
+            if (value == null) {
+                return null;
+            }
+            if (!(value instanceof Map<?, ?>)) {
+                throw new NoSuchPropertyException("Property '" + name + "' is not mapped");
+            }
+            return ((Map<?, ?>) value).get(key);
+        }
+    }
+
+    /**
+     * Reads every element of a {@link List}, array or {@link Map} property.
+     */
+    private static class WildcardAccessor implements PropertyAccessor {
+
+        private final SimpleAccessor property;
+
+        WildcardAccessor(String name) {
+            this.property = new SimpleAccessor(name);
+        }
+
+        public Object get(Object bean, ModelIndex index) throws NoSuchPropertyException {
+            Object value = property.getProperty(bean);
+            if (value == null) {
+                return null;
+            }
+            ValueList values = new ValueList();
+            if (value instanceof Collection<?>) {
+                for (Object element : (Collection<?>) value) {
+                    values.addValue(element);
+                }
+            } else if (value instanceof Map<?, ?>) {
+                for (Object element : ((Map<?, ?>) value).values()) {
+                    values.addValue(element);
+                }
+            } else if (value.getClass().isArray()) {
+                for (int i = 0; i < Array.getLength(value); i++) {
+                    values.addValue(Array.get(value, i));
+                }
+            } else {
+                throw new NoSuchPropertyException("Property '" + property.getName() + "' is not indexed");
+            }
+            return values;
+        }
+    }
+
+    /**
+     * Selects the first element of a {@link List} property whose properties
+     * have the given values. Elements are looked up in the {@link ModelIndex}
+     * by the first condition and only the matches are checked against the
+     * others.
+     */
+    private static class SelectorAccessor implements PropertyAccessor {
+
+        private final SimpleAccessor property;
+        private final List<SimpleAccessor> keys = new ArrayList<SimpleAccessor>(2);
+        private final List<String> values = new ArrayList<String>(2);
+
+        SelectorAccessor(String name, String segment, String selector) throws NoSuchPropertyException {
+            this.property = new SimpleAccessor(name);
+            for (String condition : selector.split(",")) {
+                int equals = condition.indexOf('=');
+                String key = equals < 0 ? "" : condition.substring(0, equals).trim();
+                if (key.length() == 0 || key.indexOf('.') >= 0) {
+                    throw new NoSuchPropertyException("Invalid selector '" + condition + "' in '" + segment + "'");
+                }
+                keys.add(new SimpleAccessor(key));
+                values.add(condition.substring(equals + 1).trim());
+            }
+        }
+
+        public Object get(Object bean, ModelIndex index) throws NoSuchPropertyException {
+            Object value = property.getProperty(bean);
+            if (value == null) {
+                return null;
+            }
+            if (!(value instanceof List<?>)) {
+                throw new NoSuchPropertyException("Property '" + property.getName() + "' is not a list");
+            }
+            SimpleAccessor first = keys.get(0);
+            for (Object candidate : index.find((List<?>) value, first.getName(), first, values.get(0))) {
+                if (matches(candidate, index)) {
+                    return candidate;
+                }
+            }
+            return null;
+        }
+
+        private boolean matches(Object candidate, ModelIndex index) throws NoSuchPropertyException {
+            for (int i = 1; i < keys.size(); i++) {
+                Object value = keys.get(i).get(candidate, index);
+                if (value == null || !value.toString().equals(values.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static Method findMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            Method method = type.getMethod(name, parameterTypes);
+            try {
+                method.setAccessible(true);
+            } catch (SecurityException e) {
+                // fall back to the normal access checks
+            }
+            return method;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static Object invoke(Method method, Object bean, Object... arguments) throws NoSuchPropertyException {
+        try {
+            return method.invoke(bean, arguments);
+        } catch (IllegalAccessException e) {
+            throw new NoSuchPropertyException(e);
+        } catch (InvocationTargetException e) {
+            throw new NoSuchPropertyException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.maven.model.Model;
+
+/**
+ * Extracts the same properties from every module of a reactor. Starting at
+ * the root POM, <code>&lt;modules&gt;</code> are followed recursively and the
+ * modules of each level are parsed in parallel by a {@link PomParsingEngine},
+ * on threads shared by all levels.
+ * Results are returned in reactor declaration order (depth first), starting
+ * with the root.
+ * <p>
+ * Modules are named by their artifactId. Modules whose artifactId is shared
+ * with another module are named <code>groupId.artifactId</code> instead, and
+ * two modules with the same groupId and artifactId are rejected, as Maven
+ * itself does, since their variables would overwrite each other.
+ * 
+ * @author David Ehringer
+ */
+public class ReactorExtractor {
+
+    private static final String DEFAULT_POM = "pom.xml";
+
+    private final PomParsingEngine engine;
+
+    public ReactorExtractor() {
+        this(new PomParsingEngine());
+    }
+
+    public ReactorExtractor(int threads) {
+        this(new PomParsingEngine(threads));
+    }
+
+    public ReactorExtractor(PomParsingEngine engine) {
+        this.engine = engine;
+    }
+
+    public List<ModuleValues> extract(File rootPom, Collection<String> properties, ExtractionOptions options)
+            throws FileNotFoundException, InvalidPomException {
+        Set<File> visited = new HashSet<File>();
+        visited.add(canonical(rootPom));
+        Node root = new Node(rootPom);
+        List<Node> level = Collections.singletonList(root);
+        PomParsingEngine.Session session = engine.open();
+        try {
+            while (!level.isEmpty()) {
+                level = parse(level, session, properties, options, visited);
+            }
+        } finally {
+            session.close();
+        }
+        List<ModuleValues> result = new ArrayList<ModuleValues>();
+        root.flatten(result);
+        name(result);
+        return result;
+    }
+
+    private static void name(List<ModuleValues> modules) {
+        Map<String, ModuleValues> byArtifactId = new HashMap<String, ModuleValues>();
+        Set<String> shared = new HashSet<String>();
+        for (ModuleValues module : modules) {
+            if (byArtifactId.put(module.getArtifactId(), module) != null) {
+                shared.add(module.getArtifactId());
+            }
+        }
+        Map<String, ModuleValues> byName = new HashMap<String, ModuleValues>();
+        for (ModuleValues module : modules) {
+            if (shared.contains(module.getArtifactId())) {
+                module.qualifyWithGroupId();
+            }
+            ModuleValues other = byName.put(module.getName(), module);
+            if (other != null) {
+                throw new InvalidPomException("The modules " + other.getPomFile() + " and " + module.getPomFile()
+                        + " are both " + module.getGroupId() + ":" + module.getArtifactId());
+            }
+        }
+    }
+
+    /**
+     * Parses one level of the reactor.
+     * 
+     * @return the modules of the next level that have not been seen before
+     */
+    private List<Node> parse(List<Node> level, PomParsingEngine.Session session,
+            final Collection<String> properties, final ExtractionOptions options, Set<File> visited)
+            throws FileNotFoundException {
+        List<File> pomFiles = new ArrayList<File>(level.size());
+        for (Node node : level) {
+            pomFiles.add(node.pomFile);
+        }
+        List<Node> parsed = session.process(pomFiles, new PomParsingEngine.PomTask<Node>() {
+            public Node process(File pomFile) throws FileNotFoundException {
+                Node node = new Node(pomFile);
+                node.parse(properties, options);
+                return node;
+            }
+        });
+        List<Node> next = new ArrayList<Node>();
+        for (int i = 0; i < level.size(); i++) {
+            Node node = level.get(i);
+            node.values = parsed.get(i).values;
+            for (File module : parsed.get(i).modules) {
+                if (visited.add(canonical(module))) {
+                    Node child = new Node(module);
+                    node.children.add(child);
+                    next.add(child);
+                }
+            }
+        }
+        return next;
+    }
+
+    private static File canonical(File file) {
+        try {
+            return file.getCanonicalFile();
+        } catch (IOException e) {
+            return file.getAbsoluteFile();
+        }
+    }
+
+    private static class Node {
+
+        private final File pomFile;
+        private final List<File> modules = new ArrayList<File>();
+        private final List<Node> children = new ArrayList<Node>();
+        private ModuleValues values;
+
+        Node(File pomFile) {
+            this.pomFile = pomFile;
+        }
+
+        void parse(Collection<String> properties, ExtractionOptions options) throws FileNotFoundException {
+            Model model;
+            if (options.isEffectiveModel()) {
+                model = new EffectiveModelBuilder().build(pomFile);
+            } else {
+                model = MavenModelReader.read(pomFile);
+            }
+            PomValueExtractor extractor = new PomValueExtractorMavenModel(model);
+            if (options.isInterpolate()) {
+                extractor = new PomValueExtractorInterpolating(extractor, options.getExternalVariables());
+            }
+            String groupId = model.getGroupId();
+            if (groupId == null && model.getParent() != null) {
+                groupId = model.getParent().getGroupId();
+            }
+            values = new ModuleValues(pomFile, groupId, model.getArtifactId(), extractor.getValues(properties));
+
+            File baseDir = pomFile.getAbsoluteFile().getParentFile();
+            for (String module : model.getModules()) {
+                File modulePom = new File(baseDir, module);
+                if (modulePom.isDirectory()) {
+                    modulePom = new File(modulePom, DEFAULT_POM);
+                }
+                modules.add(modulePom);
+            }
+        }
+
+        void flatten(List<ModuleValues> result) {
+            result.add(values);
+            for (Node child : children) {
+                child.flatten(result);
+            }
+        }
+    }
+}
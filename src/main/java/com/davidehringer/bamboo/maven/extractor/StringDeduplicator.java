@@ -0,0 +1,143 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Makes equal strings from different POM models share one instance. Models of
+ * a large reactor repeat the same groupIds, versions, plugin coordinates and
+ * property names in every module; the {@link PomParserPool} passes each value
+ * through here as it is parsed, so only the first copy is kept.
+ * <p>
+ * Entries are weak, so a string is dropped from the table once no model uses
+ * it anymore, and the table is split into stripes that are cleared when they
+ * reach their share of {@link #MAX_ENTRIES}, so it can neither pin models nor
+ * grow without bounds. Strings longer than {@link #MAX_LENGTH}, e.g.
+ * descriptions, are rarely repeated and are left alone.
+ * 
+ * @author David Ehringer
+ */
+public final class StringDeduplicator {
+
+    static final int MAX_ENTRIES = 64 * 1024;
+    static final int MAX_LENGTH = 256;
+
+    /**
+     * Estimated size of a string apart from its characters: the object and
+     * array headers and fields on a 64 bit JVM with compressed pointers.
+     */
+    private static final int STRING_OVERHEAD = 40;
+
+    /**
+     * A Java 8 string keeps its characters in a char[], two bytes each.
+     */
+    private static final int BYTES_PER_CHAR = 2;
+
+    private static final int STRIPES = 16;
+
+    private static final StringDeduplicator INSTANCE = new StringDeduplicator(MAX_ENTRIES);
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    StringDeduplicator(int maxEntries) {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(Math.max(1, maxEntries / STRIPES));
+        }
+    }
+
+    public static StringDeduplicator getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return an equal string, the one seen first if it is still in use
+     */
+    public String deduplicate(String value) {
+        if (value == null || value.length() > MAX_LENGTH) {
+            return value;
+        }
+        int hash = value.hashCode();
+        String shared = stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)].get(value);
+        if (shared != value) {
+            duplicates.incrementAndGet();
+            bytesSaved.addAndGet(STRING_OVERHEAD + BYTES_PER_CHAR * value.length());
+        }
+        return shared;
+    }
+
+    /**
+     * @return the number of strings replaced by an equal instance so far
+     */
+    public long getDuplicates() {
+        return duplicates.get();
+    }
+
+    /**
+     * @return an estimate of the heap no longer needed for the strings
+     *         replaced so far, from their character counts. Java 9 and
+     *         later store Latin-1 strings in one byte per character, so
+     *         there it is an upper bound.
+     */
+    public long getBytesSaved() {
+        return bytesSaved.get();
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    /**
+     * One lock and one table per stripe, so parser threads rarely wait on each
+     * other.
+     */
+    private static class Stripe {
+
+        private final int maxEntries;
+        private final Map<String, WeakReference<String>> strings = new WeakHashMap<String, WeakReference<String>>();
+
+        Stripe(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        synchronized String get(String value) {
+            WeakReference<String> reference = strings.get(value);
+            String shared = reference == null ? null : reference.get();
+            if (shared != null) {
+                return shared;
+            }
+            if (strings.size() >= maxEntries) {
+                strings.clear();
+            }
+            // The value refers to its own key weakly, so the entry can go
+            strings.put(value, new WeakReference<String>(value));
+            return value;
+        }
+
+        synchronized int size() {
+            return strings.size();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import java.util.ArrayList;
+
+/**
+ * The values a property path fans out to once it passes a wildcard segment,
+ * e.g. <code>modules[*]</code> or <code>dependencies[*].version</code>.
+ * Unset values are left out and the string form is the comma separated
+ * values, which is what ends up in a build variable.
+ * 
+ * @author David Ehringer
+ */
+final class ValueList extends ArrayList<Object> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Adds a value read from one element, flattening nested wildcards.
+     */
+    void addValue(Object value) {
+        if (value instanceof ValueList) {
+            addAll((ValueList) value);
+        } else if (value != null) {
+            add(value);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder values = new StringBuilder();
+        for (Object value : this) {
+            if (values.length() > 0) {
+                values.append(',');
+            }
+            values.append(value);
+        }
+        return values.toString();
+    }
+}
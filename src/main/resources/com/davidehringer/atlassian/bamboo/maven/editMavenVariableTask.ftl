@@ -7,6 +7,11 @@
 	           listKey='key' listValue='value' toggle='true'
 	           list=variableTypeOptions ]
 	[/@ww.radio]
+	[@ww.select labelKey='maven.extractor.config.option.variableLogging' name='variableLogging'
+	            listKey='key' listValue='value' list=variableLoggingOptions /]
+	[@ww.select labelKey='maven.extractor.config.option.exportFormat' name='exportFormat'
+	            listKey='key' listValue='value' list=exportFormatOptions /]
+	[@ww.textfield labelKey='maven.extractor.config.exportFile' name='exportFile' cssClass="long-field" /]
 [/@ui.bambooSection]
                                         
 [@ui.bambooSection dependsOn="gavOrCustom" showOn="0" titleKey='maven.extractor.config.gav']
@@ -21,12 +26,21 @@
 [/@ui.bambooSection]
                                         
 [@ui.bambooSection dependsOn='gavOrCustom' showOn='1' titleKey='maven.extractor.config.custom']
-        [@ww.textfield labelKey='maven.extractor.config.custom.variable.name' name='customVariableName' required='true' cssClass="long-field" /]
-        [@ww.textfield labelKey='maven.extractor.config.custom.element' name='customElement' required='true' cssClass="long-field" /]
+        [@ww.textfield labelKey='maven.extractor.config.custom.variable.name' name='customVariableName' cssClass="long-field" /]
+        [@ww.textfield labelKey='maven.extractor.config.custom.element' name='customElement' cssClass="long-field" /]
+        [@ww.textarea labelKey='maven.extractor.config.custom.mappings' name='customMappings' rows='5' cssClass="long-field" /]
 [/@ui.bambooSection]
 
 [@ui.bambooSection titleKey='maven.extractor.config.pom.options']
 	[@ww.textfield labelKey='builder.maven2.projectFile' name='projectFile' cssClass="long-field" /]
+	[@ww.checkbox labelKey='maven.extractor.config.pom.resolveParents' name='resolveParents' /]
+	[@ww.checkbox labelKey='maven.extractor.config.pom.interpolate' name='interpolate' /]
+	[@ww.checkbox labelKey='maven.extractor.config.pom.lazyModel' name='lazyModel' /]
+	[@ww.checkbox labelKey='maven.extractor.config.pom.alwaysParse' name='alwaysParse' /]
+	[@ww.checkbox labelKey='maven.extractor.config.pom.reactorScan' name='reactorScan' toggle='true' /]
+	[@ui.bambooSection dependsOn='reactorScan' showOn='true']
+	    [@ww.textfield labelKey='maven.extractor.config.pom.parserThreads' name='parserThreads' cssClass="short-field" /]
+	[/@ui.bambooSection]
 [/@ui.bambooSection]
 
 <script type="text/javascript">
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.atlassian.bamboo.maven;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.atlassian.bamboo.build.logger.NullBuildLogger;
+import com.atlassian.bamboo.plan.Plan;
+import com.atlassian.bamboo.plan.PlanKeys;
+import com.atlassian.bamboo.plan.PlanManager;
+import com.atlassian.bamboo.variable.VariableDefinition;
+import com.atlassian.bamboo.variable.VariableDefinitionImpl;
+import com.atlassian.bamboo.variable.VariableDefinitionManager;
+
+/**
+ * @author David Ehringer
+ */
+public class BambooVariableManagerTest {
+
+    private static final String PLAN_KEY = "PROJ-PLAN";
+
+    private PlanManager planManager;
+    private VariableDefinitionManager variableDefinitionManager;
+    private Plan plan;
+    private List<VariableDefinition> planVariables;
+    private BambooVariableManager manager;
+
+    @Before
+    public void init() {
+        planManager = mock(PlanManager.class);
+        variableDefinitionManager = mock(VariableDefinitionManager.class);
+        plan = mock(Plan.class);
+        planVariables = new ArrayList<VariableDefinition>();
+        when(planManager.getPlanByKey(PlanKeys.getPlanKey(PLAN_KEY))).thenReturn(plan);
+        when(variableDefinitionManager.getPlanVariables(plan)).thenReturn(planVariables);
+        manager = new BambooVariableManager(planManager, variableDefinitionManager, new NullBuildLogger());
+    }
+
+    private VariableDefinition existing(String key, String value) {
+        VariableDefinition definition = new VariableDefinitionImpl();
+        definition.setKey(key);
+        definition.setValue(value);
+        planVariables.add(definition);
+        return definition;
+    }
+
+    @Test
+    public void anExistingDefinitionIsUpdatedInPlace() {
+        VariableDefinition version = existing("maven.version", "1.0");
+        existing("other", "x");
+
+        manager.addOrUpdateVariables(PLAN_KEY, Arrays.asList(new Variable("maven.version", "1.1")));
+
+        assertThat(version.getValue(), is("1.1"));
+        verify(variableDefinitionManager).saveVariableDefinition(version);
+    }
+
+    @Test
+    public void thePlanAndItsVariablesAreLookedUpOnce() {
+        existing("maven.version", "1.0");
+
+        manager.addOrUpdateVariables(PLAN_KEY, Arrays.asList(new Variable("maven.groupId", "g"), new Variable(
+                "maven.artifactId", "a"), new Variable("maven.version", "1.1")));
+
+        verify(planManager).getPlanByKey(PlanKeys.getPlanKey(PLAN_KEY));
+        verify(variableDefinitionManager).getPlanVariables(plan);
+    }
+
+    @Test
+    public void whenANameOccursTwiceTheLastValueIsSavedOnce() {
+        VariableDefinition version = existing("maven.version", "1.0");
+
+        manager.addOrUpdateVariables(PLAN_KEY,
+                Arrays.asList(new Variable("maven.version", "1.1"), new Variable("maven.version", "1.2")));
+
+        assertThat(version.getValue(), is("1.2"));
+        verify(variableDefinitionManager).saveVariableDefinition(version);
+    }
+
+    @Test
+    public void anUnchangedValueIsNotSaved() {
+        VariableDefinition version = existing("maven.version", "1.0");
+
+        PlanVariableDiff diff = manager.addOrUpdateVariables(PLAN_KEY,
+                Arrays.asList(new Variable("maven.version", "1.0")));
+
+        assertThat(diff.hasChanges(), is(false));
+        verify(variableDefinitionManager, never()).saveVariableDefinition(version);
+    }
+}
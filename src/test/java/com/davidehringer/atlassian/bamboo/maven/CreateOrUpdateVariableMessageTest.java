@@ -0,0 +1,123 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.atlassian.bamboo.maven;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * @author David Ehringer
+ */
+public class CreateOrUpdateVariableMessageTest {
+
+    private static final Class<?> FIRST_VERSION =
+            com.davidehringer.atlassian.bamboo.maven.baseline.CreateOrUpdateVariableMessage.class;
+
+    private final List<Variable> variables = Arrays.asList(new Variable("maven.version", "1.0"), new Variable(
+            "maven.name", "App"));
+
+    private static byte[] serialize(Object message) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(message);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] serialized, Class<?> writtenAs, Class<?> readAs) throws Exception {
+        return new RenamingInputStream(new ByteArrayInputStream(serialized), writtenAs, readAs).readObject();
+    }
+
+    @Test
+    public void aMessageSerializedByTheFirstVersionIsRead() throws Exception {
+        byte[] serialized = serialize(new com.davidehringer.atlassian.bamboo.maven.baseline.CreateOrUpdateVariableMessage(
+                "PROJ-PLAN", "PROJ-PLAN-JOB1-5", variables));
+
+        CreateOrUpdateVariableMessage message = (CreateOrUpdateVariableMessage) deserialize(serialized,
+                FIRST_VERSION, CreateOrUpdateVariableMessage.class);
+
+        assertThat(message.getVariables(), is(variables));
+        assertThat(message.getVariableLogging(), is(VariableLogging.DETAILED));
+    }
+
+    @Test
+    public void aMessageIsReadByTheFirstVersion() throws Exception {
+        byte[] serialized = serialize(new CreateOrUpdateVariableMessage("PROJ-PLAN", "PROJ-PLAN-JOB1-5", variables,
+                VariableLogging.TABLE));
+
+        Object message = deserialize(serialized, CreateOrUpdateVariableMessage.class, FIRST_VERSION);
+
+        assertThat(((com.davidehringer.atlassian.bamboo.maven.baseline.CreateOrUpdateVariableMessage) message)
+                .getVariables(), is(variables));
+    }
+
+    @Test
+    public void theSerialVersionUidIsTheOneComputedForTheFirstVersion() {
+        // serialver output for the class as it was before the message had an
+        // explicit serialVersionUID
+        assertThat(ObjectStreamClass.lookup(CreateOrUpdateVariableMessage.class).getSerialVersionUID(),
+                is(-4275223137577532769L));
+    }
+
+    @Test
+    public void aMessageSurvivesARoundTrip() throws Exception {
+        byte[] serialized = serialize(new CreateOrUpdateVariableMessage("PROJ-PLAN", "PROJ-PLAN-JOB1-5", variables,
+                VariableLogging.TABLE));
+
+        CreateOrUpdateVariableMessage message = (CreateOrUpdateVariableMessage) new ObjectInputStream(
+                new ByteArrayInputStream(serialized)).readObject();
+
+        assertThat(message.getVariables(), is(variables));
+        assertThat(message.getVariableLogging(), is(VariableLogging.TABLE));
+    }
+
+    /**
+     * Finds the class the way the other side of a mixed-version pair would:
+     * the copy of the first version instead of the current class, or the
+     * other way round.
+     */
+    private static class RenamingInputStream extends ObjectInputStream {
+
+        private final Class<?> writtenAs;
+        private final Class<?> readAs;
+
+        RenamingInputStream(InputStream in, Class<?> writtenAs, Class<?> readAs) throws IOException {
+            super(in);
+            this.writtenAs = writtenAs;
+            this.readAs = readAs;
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            if (desc.getName().equals(writtenAs.getName())) {
+                return readAs;
+            }
+            return super.resolveClass(desc);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.atlassian.bamboo.maven;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+/**
+ * @author David Ehringer
+ */
+public class ExtractorMetricsTest {
+
+    @Test
+    public void theMetricsAreExposedThroughJmxUntilThePluginIsDisabled() throws Exception {
+        ExtractorMetrics metrics = new ExtractorMetrics();
+        metrics.parseFailed();
+        metrics.variablesWritten(3);
+        ExtractorMetricsExporter exporter = new ExtractorMetricsExporter(metrics);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(ExtractorMetrics.OBJECT_NAME);
+
+        exporter.afterPropertiesSet();
+        try {
+            assertThat(server.getAttribute(name, "ParseFailures"), is((Object) 1L));
+            assertThat(server.getAttribute(name, "VariablesWritten"), is((Object) 3L));
+        } finally {
+            exporter.destroy();
+        }
+        assertThat(server.isRegistered(name), is(false));
+    }
+
+    @Test
+    public void anExecutionAccumulatesItsPhaseTimes() {
+        ExtractorMetrics metrics = new ExtractorMetrics();
+        PhaseTimer timer = new PhaseTimer();
+        timer.begin(PhaseTimer.PARSE);
+        timer.end();
+
+        metrics.executed(timer);
+
+        assertThat(metrics.getExecutions(), is(1L));
+        assertThat(metrics.getLastExecution(), is(timer.toString()));
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.atlassian.bamboo.maven;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * @author David Ehringer
+ */
+public class PhaseTimerTest {
+
+    @Test
+    public void phasesAreReportedInTheOrderTheyStarted() throws InterruptedException {
+        PhaseTimer timer = new PhaseTimer();
+        timer.begin(PhaseTimer.PARSE);
+        Thread.sleep(5);
+        timer.begin(PhaseTimer.PERSIST);
+        timer.end();
+
+        assertTrue(timer.getMillis(PhaseTimer.PARSE) >= 5);
+        assertTrue(timer.toString().matches("\\d+ ms \\(parse \\d+ ms, persist \\d+ ms\\)"));
+    }
+
+    @Test
+    public void timeCanBeMovedBetweenPhases() {
+        PhaseTimer timer = new PhaseTimer();
+        timer.move(PhaseTimer.EXTRACT, PhaseTimer.INTERPOLATE, TimeUnit.MILLISECONDS.toNanos(3));
+
+        assertThat(timer.getMillis(PhaseTimer.INTERPOLATE), is(3L));
+        assertThat(timer.getTotalMillis(), is(0L));
+    }
+}
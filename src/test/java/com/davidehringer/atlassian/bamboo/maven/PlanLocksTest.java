@@ -0,0 +1,55 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.atlassian.bamboo.maven;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+
+import org.junit.Test;
+
+/**
+ * @author David Ehringer
+ */
+public class PlanLocksTest {
+
+    @Test
+    public void theSamePlanKeyAlwaysMapsToTheSameLock() {
+        PlanLocks locks = new PlanLocks(16);
+        assertThat(locks.get("PROJ-PLAN"), is(sameInstance(locks.get(new String("PROJ-PLAN")))));
+    }
+
+    @Test
+    public void theNumberOfStripesIsRoundedUpToAPowerOfTwo() {
+        assertThat(new PlanLocks(20).getStripes(), is(32));
+        assertThat(new PlanLocks(1).getStripes(), is(1));
+    }
+
+    @Test
+    public void differentPlansAreSpreadOverTheStripes() {
+        PlanLocks locks = new PlanLocks(16);
+        Map<Lock, Boolean> used = new IdentityHashMap<Lock, Boolean>();
+        for (int i = 0; i < 100; i++) {
+            used.put(locks.get("PROJ-PLAN" + i), Boolean.TRUE);
+        }
+        assertTrue(used.size() > 8);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.atlassian.bamboo.maven;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.atlassian.bamboo.variable.VariableDefinition;
+import com.atlassian.bamboo.variable.VariableDefinitionImpl;
+
+/**
+ * @author David Ehringer
+ */
+public class PlanVariableDiffTest {
+
+    private final List<VariableDefinition> existing = new ArrayList<VariableDefinition>();
+
+    private VariableDefinition existing(String key, String value) {
+        VariableDefinition definition = new VariableDefinitionImpl();
+        definition.setKey(key);
+        definition.setValue(value);
+        existing.add(definition);
+        return definition;
+    }
+
+    @Test
+    public void variablesAreClassifiedAsAddedUpdatedOrUnchanged() {
+        existing("maven.groupId", "g");
+        VariableDefinition version = existing("maven.version", "1.0");
+
+        PlanVariableDiff diff = new PlanVariableDiff(existing, Arrays.asList(new Variable("maven.groupId", "g"),
+                new Variable("maven.artifactId", "a"), new Variable("maven.version", "1.1")));
+
+        assertThat(diff.getAdded(), is(Arrays.asList(new Variable("maven.artifactId", "a"))));
+        assertThat(diff.getUpdated().get(new Variable("maven.version", "1.1")), is(version));
+        assertThat(diff.getUnchanged(), is(Arrays.asList(new Variable("maven.groupId", "g"))));
+        assertThat(diff.toString(), is("1 added, 1 updated, 1 unchanged"));
+    }
+
+    @Test
+    public void theLastValueOfARepeatedNameIsCompared() {
+        existing("maven.version", "1.1");
+
+        PlanVariableDiff diff = new PlanVariableDiff(existing,
+                Arrays.asList(new Variable("maven.version", "1.0"), new Variable("maven.version", "1.1")));
+
+        assertThat(diff.hasChanges(), is(false));
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.atlassian.bamboo.maven;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.atlassian.bamboo.build.logger.BuildLogger;
+import com.atlassian.bamboo.build.logger.NullBuildLogger;
+import com.atlassian.bamboo.plan.Plan;
+import com.atlassian.bamboo.plan.PlanKeys;
+import com.atlassian.bamboo.plan.PlanManager;
+import com.atlassian.bamboo.variable.VariableDefinition;
+import com.atlassian.bamboo.variable.VariableDefinitionImpl;
+import com.atlassian.bamboo.variable.VariableDefinitionManager;
+
+/**
+ * @author David Ehringer
+ */
+public class PlanVariableUpdateQueueTest {
+
+    private static final String PLAN_KEY = "PROJ-PLAN";
+
+    private PlanLocks planLocks;
+    private PlanVariableUpdateQueue queue;
+    private PlanManager planManager;
+    private VariableDefinition version;
+    private VariableDefinitionStore store;
+    private VariableDefinitionManager variableDefinitionManager;
+    private AtomicInteger failedUpdates;
+
+    @Before
+    public void init() {
+        planLocks = new PlanLocks(1);
+        queue = new PlanVariableUpdateQueue(planLocks);
+        planManager = mock(PlanManager.class);
+        Plan plan = mock(Plan.class);
+        when(planManager.getPlanByKey(PlanKeys.getPlanKey(PLAN_KEY))).thenReturn(plan);
+        version = new VariableDefinitionImpl();
+        version.setKey("maven.version");
+        version.setValue("1.0");
+        store = new VariableDefinitionStore(version);
+        variableDefinitionManager = (VariableDefinitionManager) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { VariableDefinitionManager.class }, store);
+        failedUpdates = new AtomicInteger();
+    }
+
+    private Thread update(final String value, final BuildLogger buildLogger) {
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    queue.update(PLAN_KEY, Arrays.asList(new Variable("maven.version", value)), planManager,
+                            variableDefinitionManager, buildLogger, VariableLogging.SUMMARY);
+                } catch (RuntimeException e) {
+                    failedUpdates.incrementAndGet();
+                }
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    private void awaitWaitingUpdates(int count) throws InterruptedException {
+        ReentrantLock lock = (ReentrantLock) planLocks.get(PLAN_KEY);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (lock.getQueueLength() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void anUpdateIsSavedBeforeItReturns() {
+        queue.update(PLAN_KEY, Arrays.asList(new Variable("maven.version", "1.1")), planManager,
+                variableDefinitionManager, new NullBuildLogger(), VariableLogging.SUMMARY);
+
+        assertThat(version.getValue(), is("1.1"));
+        assertThat(queue.getPendingPlanCount(), is(0));
+    }
+
+    @Test
+    public void updatesWaitingForTheSamePlanAreSavedTogetherAndTheLastValueWins() throws InterruptedException {
+        store.blockSaves();
+        Thread first = update("1.1", new NullBuildLogger());
+        store.awaitSave();
+        Thread second = update("1.2", new NullBuildLogger());
+        awaitWaitingUpdates(1);
+        Thread third = update("1.3", new NullBuildLogger());
+        awaitWaitingUpdates(2);
+
+        store.unblockSaves();
+        first.join();
+        second.join();
+        third.join();
+
+        assertThat(version.getValue(), is("1.3"));
+        assertThat(store.reads.get(), is(2));
+        assertThat(queue.getPendingPlanCount(), is(0));
+    }
+
+    @Test
+    public void aFailedWriteFailsEveryUpdateItHeld() throws InterruptedException {
+        BuildLogger secondLog = mock(BuildLogger.class);
+        BuildLogger thirdLog = mock(BuildLogger.class);
+        store.blockSaves();
+        Thread first = update("1.1", new NullBuildLogger());
+        store.awaitSave();
+        RuntimeException failure = new IllegalStateException("database down");
+        store.failure = failure;
+        Thread second = update("1.2", secondLog);
+        awaitWaitingUpdates(1);
+        Thread third = update("1.3", thirdLog);
+        awaitWaitingUpdates(2);
+
+        store.unblockSaves();
+        first.join();
+        second.join();
+        third.join();
+
+        verify(secondLog).addErrorLogEntry("Unable to update plan variables of " + PLAN_KEY, failure);
+        verify(thirdLog).addErrorLogEntry("Unable to update plan variables of " + PLAN_KEY, failure);
+        // Both the update that made the write and the one merged into it
+        assertThat(failedUpdates.get(), is(2));
+    }
+
+    /**
+     * Holds the plan's variable definitions. Saves can be held back to let
+     * updates queue up behind the one being saved.
+     */
+    private static class VariableDefinitionStore implements InvocationHandler {
+
+        private final List<VariableDefinition> definitions = new ArrayList<VariableDefinition>();
+        private final AtomicInteger reads = new AtomicInteger();
+        private final CountDownLatch saving = new CountDownLatch(1);
+        private CountDownLatch blocked = new CountDownLatch(0);
+        private volatile RuntimeException failure;
+
+        VariableDefinitionStore(VariableDefinition definition) {
+            definitions.add(definition);
+        }
+
+        void blockSaves() {
+            blocked = new CountDownLatch(1);
+        }
+
+        void unblockSaves() {
+            blocked.countDown();
+        }
+
+        void awaitSave() throws InterruptedException {
+            saving.await(5, TimeUnit.SECONDS);
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("getPlanVariables")) {
+                reads.incrementAndGet();
+                return new ArrayList<VariableDefinition>(definitions);
+            }
+            if (name.equals("saveVariableDefinition")) {
+                RuntimeException failure = this.failure;
+                saving.countDown();
+                blocked.await(5, TimeUnit.SECONDS);
+                if (failure != null) {
+                    throw failure;
+                }
+                return null;
+            }
+            if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            if (name.equals("equals")) {
+                return proxy == args[0];
+            }
+            return null;
+        }
+    }
+}
@@ -15,15 +15,27 @@
  */
 package com.davidehringer.atlassian.bamboo.maven;
 
+import static com.davidehringer.atlassian.bamboo.maven.TaskConfiguration.ALWAYS_PARSE;
+import static com.davidehringer.atlassian.bamboo.maven.TaskConfiguration.EXPORT_FILE;
+import static com.davidehringer.atlassian.bamboo.maven.TaskConfiguration.EXPORT_FORMAT;
+import static com.davidehringer.atlassian.bamboo.maven.TaskConfiguration.PARSER_THREADS;
+import static com.davidehringer.atlassian.bamboo.maven.TaskConfiguration.RESOLVE_PARENTS;
 import static com.davidehringer.atlassian.bamboo.maven.TaskConfiguration.STRIP_SNAPSHOT;
+import static com.davidehringer.atlassian.bamboo.maven.TaskConfiguration.VARIABLE_LOGGING;
 import static com.davidehringer.atlassian.bamboo.maven.TaskConfiguration.VARIABLE_TYPE;
 import static com.davidehringer.atlassian.bamboo.maven.TaskConfiguration.VARIABLE_TYPE_JOB;
 import static com.davidehringer.atlassian.bamboo.maven.TaskConfiguration.VARIABLE_TYPE_PLAN;
 import static com.davidehringer.atlassian.bamboo.maven.TaskConfiguration.VARIABLE_TYPE_RESULT;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.when;
 
+import java.io.File;
+import java.util.Map;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
@@ -97,4 +109,113 @@ public class TaskConfigurationTest {
         TaskConfiguration taskConfiguration = new TaskConfiguration(context);
         assertTrue(taskConfiguration.isStripSnaphost());
     }
+
+    @Test
+    public void whenResolveParentsIsNullThenItIsDefaultedToFalse() {
+        when(configurationMap.get(RESOLVE_PARENTS)).thenReturn(null);
+
+        TaskConfiguration taskConfiguration = new TaskConfiguration(context);
+        assertFalse(taskConfiguration.isResolveParents());
+    }
+
+    @Test
+    public void whenResolveParentsIsTrueThenItIsSetToTrue() {
+        when(configurationMap.get(RESOLVE_PARENTS)).thenReturn("true");
+
+        TaskConfiguration taskConfiguration = new TaskConfiguration(context);
+        assertTrue(taskConfiguration.isResolveParents());
+    }
+
+    @Test
+    public void whenAlwaysParseIsNullThenValuesMayBeReused() {
+        when(configurationMap.get(ALWAYS_PARSE)).thenReturn(null);
+
+        TaskConfiguration taskConfiguration = new TaskConfiguration(context);
+        assertFalse(taskConfiguration.isAlwaysParse());
+    }
+
+    @Test
+    public void whenAlwaysParseIsTrueThenItIsSetToTrue() {
+        when(configurationMap.get(ALWAYS_PARSE)).thenReturn("true");
+
+        TaskConfiguration taskConfiguration = new TaskConfiguration(context);
+        assertTrue(taskConfiguration.isAlwaysParse());
+    }
+
+    @Test
+    public void whenParserThreadsIsNotAPositiveNumberThenItIsDefaultedToZero() {
+        when(configurationMap.get(PARSER_THREADS)).thenReturn("-2");
+
+        TaskConfiguration taskConfiguration = new TaskConfiguration(context);
+        assertThat(taskConfiguration.getParserThreads(), is(0));
+    }
+
+    @Test
+    public void whenParserThreadsIsSetThenItIsParsed() {
+        when(configurationMap.get(PARSER_THREADS)).thenReturn("4");
+
+        TaskConfiguration taskConfiguration = new TaskConfiguration(context);
+        assertThat(taskConfiguration.getParserThreads(), is(4));
+    }
+
+    @Test
+    public void whenVariableLoggingIsNullThenEveryVariableIsLogged() {
+        when(configurationMap.get(VARIABLE_LOGGING)).thenReturn(null);
+
+        TaskConfiguration taskConfiguration = new TaskConfiguration(context);
+        assertThat(taskConfiguration.getVariableLogging(), is(VariableLogging.DETAILED));
+    }
+
+    @Test
+    public void whenVariableLoggingIsTableThenItIsSetToTable() {
+        when(configurationMap.get(VARIABLE_LOGGING)).thenReturn("TABLE");
+
+        TaskConfiguration taskConfiguration = new TaskConfiguration(context);
+        assertThat(taskConfiguration.getVariableLogging(), is(VariableLogging.TABLE));
+    }
+
+    @Test
+    public void customMappingsAreParsedOnePerLine() {
+        Map<String, String> mappings = TaskConfiguration
+                .parseCustomMappings("# comment\nfoo=properties(foo)\r\n\n bar = version \nbroken\n");
+
+        assertThat(mappings.size(), is(2));
+        assertThat(mappings.get("foo"), is("properties(foo)"));
+        assertThat(mappings.get("bar"), is("version"));
+    }
+
+    @Test
+    public void invalidCustomMappingIsReported() {
+        assertThat(TaskConfiguration.findInvalidMapping("foo=version\n=groupId"), is("=groupId"));
+        assertThat(TaskConfiguration.findInvalidMapping("foo=version\n\n# bar"), is(nullValue()));
+    }
+
+    @Test
+    public void whenExportFormatIsNullThenNothingIsExported() {
+        when(configurationMap.get(EXPORT_FORMAT)).thenReturn(null);
+
+        TaskConfiguration taskConfiguration = new TaskConfiguration(context);
+        assertThat(taskConfiguration.getExportFormat(), is(ExportFormat.NONE));
+        assertThat(taskConfiguration.getExportFile(), is(nullValue()));
+    }
+
+    @Test
+    public void whenExportFileIsNotSetThenTheDefaultOfTheFormatIsUsed() {
+        when(configurationMap.get(EXPORT_FORMAT)).thenReturn("JSON");
+        when(context.getRootDirectory()).thenReturn(new File("work"));
+
+        TaskConfiguration taskConfiguration = new TaskConfiguration(context);
+        assertThat(taskConfiguration.getExportFormat(), is(ExportFormat.JSON));
+        assertThat(taskConfiguration.getExportFile(), is(new File("work", "pom-values.json")));
+    }
+
+    @Test
+    public void whenExportFileIsSetThenItIsRelativeToTheWorkingDirectory() {
+        when(configurationMap.get(EXPORT_FORMAT)).thenReturn("ENV");
+        when(configurationMap.get(EXPORT_FILE)).thenReturn("target/build.env");
+        when(context.getRootDirectory()).thenReturn(new File("work"));
+
+        TaskConfiguration taskConfiguration = new TaskConfiguration(context);
+        assertThat(taskConfiguration.getExportFile(), is(new File("work", "target/build.env")));
+    }
 }
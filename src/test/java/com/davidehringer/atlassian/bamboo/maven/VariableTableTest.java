@@ -0,0 +1,40 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.atlassian.bamboo.maven;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+/**
+ * @author David Ehringer
+ */
+public class VariableTableTest {
+
+    @Test
+    public void columnsAreAlignedToTheWidestCell() {
+        VariableTable table = new VariableTable("Setting 2 JOB variables", "Variable", "Value");
+        table.addRow("maven.groupId", "com.davidehringer");
+        table.addRow("maven.version", null);
+
+        assertThat(table.getRowCount(), is(2));
+        assertThat(table.toString(), is("Setting 2 JOB variables\n" //
+                + "  Variable       Value\n" //
+                + "  maven.groupId  com.davidehringer\n" //
+                + "  maven.version  "));
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.atlassian.bamboo.maven;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * @author David Ehringer
+ */
+public class VariablesCodecTest {
+
+    private List<Variable> reactorVariables(int modules) {
+        List<Variable> variables = new ArrayList<Variable>();
+        for (int i = 0; i < modules; i++) {
+            variables.add(new Variable("maven.module-" + i + ".groupId", "com.davidehringer.bamboo.maven"));
+            variables.add(new Variable("maven.module-" + i + ".artifactId", "module-" + i));
+            variables.add(new Variable("maven.module-" + i + ".version", "2.3-SNAPSHOT"));
+        }
+        return variables;
+    }
+
+    @Test
+    public void variablesSurviveARoundTrip() throws IOException {
+        List<Variable> variables = Arrays.asList(new Variable("maven.version", "1.0"), new Variable(
+                "maven.versionLabel", null), new Variable("maven.name", "caf\u00e9 \ud83d\ude00"), new Variable(
+                "maven.name\ud83d\ude00", ""), new Variable("maven.name\ud83d\ude01", "x"));
+
+        assertThat(VariablesCodec.decode(VariablesCodec.encode(variables)), is(variables));
+    }
+
+    @Test
+    public void largeMessagesAreDeflated() throws IOException {
+        List<Variable> variables = reactorVariables(500);
+
+        byte[] encoded = VariablesCodec.encode(variables);
+
+        assertThat(encoded[0] & 0xFF, is(VariablesCodec.VERSION));
+        assertThat(encoded[1] & VariablesCodec.FLAG_DEFLATED, is(VariablesCodec.FLAG_DEFLATED));
+        assertThat(VariablesCodec.decode(encoded), is(variables));
+    }
+
+    @Test
+    public void aLaterVersionIsReadIgnoringWhatItAppends() throws IOException {
+        List<Variable> variables = reactorVariables(1);
+        byte[] encoded = VariablesCodec.encode(variables);
+        byte[] later = Arrays.copyOf(encoded, encoded.length + 3);
+        later[0] = (byte) (VariablesCodec.VERSION + 1);
+
+        assertTrue(VariablesCodec.isReadable(later));
+        assertThat(VariablesCodec.decode(later), is(variables));
+    }
+
+    @Test(expected = InvalidObjectException.class)
+    public void anUnknownFlagIsRejected() throws IOException {
+        byte[] encoded = VariablesCodec.encode(reactorVariables(1));
+        encoded[1] |= 0x80;
+
+        assertFalse(VariablesCodec.isReadable(encoded));
+        VariablesCodec.decode(encoded);
+    }
+
+    @Test
+    public void theEncodingIsLessThanHalfThePlainText() throws IOException {
+        List<Variable> variables = reactorVariables(500);
+
+        byte[] encoded = VariablesCodec.encode(variables);
+
+        int plainSize = 0;
+        for (Variable variable : variables) {
+            plainSize += variable.getName().length() + variable.getValue().length();
+        }
+        assertTrue(encoded.length < plainSize / 2);
+    }
+}
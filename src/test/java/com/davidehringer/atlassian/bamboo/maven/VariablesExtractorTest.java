@@ -17,6 +17,7 @@ package com.davidehringer.atlassian.bamboo.maven;
 
 import static com.davidehringer.atlassian.bamboo.maven.TaskConfiguration.*;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -117,6 +118,27 @@ public class VariablesExtractorTest {
         assertThat(variables, hasItem(new Variable("myProperty", "myValue")));
     }
     
+    @Test
+    public void extractSeveralCustomValuesFromOnePom() {
+        // Given
+        configurationMap.put(EXTRACT_MODE, EXTRACT_MODE_CUSTOM);
+        configurationMap.put(CUSTOM_ELEMENT, "properties.myProperty");
+        configurationMap.put(CUSTOM_VARIABLE_NAME, "myProperty");
+        configurationMap.put(CUSTOM_MAPPINGS, "pomVersion=version\nsameProperty=properties.myProperty");
+
+        TaskConfiguration config = new TaskConfiguration(taskContext);
+
+        // When
+        List<Variable> variables = extractor.extractVariables(config);
+
+        // Then
+        assertThat(variables.size(), is(3));
+        assertThat(variables, hasItem(new Variable("myProperty", "myValue")));
+        assertThat(variables, hasItem(new Variable("pomVersion", "2.3-SNAPSHOT")));
+        assertThat(variables, hasItem(new Variable("sameProperty", "myValue")));
+        assertThat(VariablesExtractor.getElementsToExtract(config).size(), is(2));
+    }
+
     @Test
     public void removeSnapshotFromVersion() {
         // Given
@@ -132,4 +154,21 @@ public class VariablesExtractorTest {
         // Then
         assertThat(variables, hasItem(new Variable("maven.version", "2.3")));
     }
+
+    @Test
+    public void variablesOfAReactorModuleAreQualifiedWithItsArtifactId() throws FileNotFoundException {
+        // Given
+        configurationMap.put(EXTRACT_MODE, EXTRACT_MODE_GAV);
+        configurationMap.put(PREFIX_OPTION, PREFIX_OPTION_DEFAULT);
+        PomValueExtractor pomExtractor = new PomValueExtractorMavenModel(getFile("/pom-basic.xml"));
+        extractor = new VariablesExtractor(pomExtractor, "maven-pom-parser");
+
+        TaskConfiguration config = new TaskConfiguration(taskContext);
+
+        // When
+        List<Variable> variables = extractor.extractVariables(config);
+
+        // Then
+        assertThat(variables, hasItem(new Variable("maven.maven-pom-parser.version", "2.3-SNAPSHOT")));
+    }
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.atlassian.bamboo.maven;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author David Ehringer
+ */
+public class VariablesFileWriterTest {
+
+    private File dir;
+    private List<Variable> variables;
+
+    @Before
+    public void createVariables() throws IOException {
+        dir = File.createTempFile("export", "");
+        dir.delete();
+        dir.mkdirs();
+        variables = Arrays.asList(new Variable("maven.version", "2.3-SNAPSHOT"), new Variable("quote's",
+                "a \"b\"\n c=d"), new Variable("empty", null));
+    }
+
+    @After
+    public void deleteFiles() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void propertiesCanBeLoadedAgain() throws IOException {
+        File file = new File(dir, "pom-values.properties");
+        VariablesFileWriter.write(variables, ExportFormat.PROPERTIES, file);
+
+        Properties properties = new Properties();
+        InputStream input = new FileInputStream(file);
+        try {
+            properties.load(input);
+        } finally {
+            input.close();
+        }
+        assertThat(properties.size(), is(3));
+        assertThat(properties.getProperty("maven.version"), is("2.3-SNAPSHOT"));
+        assertThat(properties.getProperty("quote's"), is("a \"b\"\n c=d"));
+        assertThat(properties.getProperty("empty"), is(""));
+    }
+
+    @Test
+    public void propertiesEscapeNonLatinCharacters() {
+        List<Variable> unicode = Arrays.asList(new Variable("name", " \u00e9\u20ac"));
+        assertThat(VariablesFileWriter.toProperties(unicode), is("name=\\ \\u00E9\\u20AC\n"));
+    }
+
+    @Test
+    public void jsonIsAnObjectOfNamesAndValues() {
+        assertThat(VariablesFileWriter.toJson(variables), is("{\n" //
+                + "  \"maven.version\": \"2.3-SNAPSHOT\",\n" //
+                + "  \"quote's\": \"a \\\"b\\\"\\n c=d\",\n" //
+                + "  \"empty\": \"\"\n" //
+                + "}\n"));
+        assertThat(VariablesFileWriter.toJson(new ArrayList<Variable>()), is("{}\n"));
+    }
+
+    @Test
+    public void envFilesExportShellSafeNamesAndQuotedValues() {
+        assertThat(VariablesFileWriter.toEnv(variables), is("export maven_version='2.3-SNAPSHOT'\n" //
+                + "export quote_s='a \"b\"\n c=d'\n" //
+                + "export empty=''\n"));
+        assertThat(VariablesFileWriter.toEnv(Arrays.asList(new Variable("1st", "it's"))),
+                is("export _1st='it'\\''s'\n"));
+    }
+
+    @Test
+    public void anExistingFileIsReplacedWithoutLeavingTemporaryFiles() throws IOException {
+        File file = new File(dir, "pom-values.env");
+        VariablesFileWriter.write(variables, ExportFormat.ENV, file);
+        VariablesFileWriter.write(Arrays.asList(new Variable("maven.version", "2.4")), ExportFormat.ENV, file);
+
+        assertThat(read(file), is("export maven_version='2.4'\n"));
+        assertThat(dir.listFiles().length, is(1));
+    }
+
+    @Test
+    public void aFileWithAShortNameIsWritten() throws IOException {
+        File file = new File(dir, "a");
+        VariablesFileWriter.write(Arrays.asList(new Variable("maven.version", "2.4")), ExportFormat.ENV, file);
+
+        assertThat(read(file), is("export maven_version='2.4'\n"));
+        assertThat(dir.listFiles().length, is(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void variablesWithTheSameEnvNameAreNotExported() {
+        VariablesFileWriter.toEnv(Arrays.asList(new Variable("maven.a-b", "1"), new Variable("maven.a_b", "2")));
+    }
+
+    private String read(File file) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        InputStream input = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                content.write(buffer, 0, read);
+            }
+        } finally {
+            input.close();
+        }
+        return content.toString("UTF-8");
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.atlassian.bamboo.maven.baseline;
+
+import java.util.List;
+
+import com.atlassian.bamboo.v2.build.agent.messages.AbstractBambooAgentMessage;
+import com.davidehringer.atlassian.bamboo.maven.Variable;
+
+/**
+ * The serialized form of the first version of the message sent by remote
+ * agents: the same fields and the serialVersionUID computed for that class.
+ * 
+ * @author David Ehringer
+ */
+public class CreateOrUpdateVariableMessage extends AbstractBambooAgentMessage {
+
+    private static final long serialVersionUID = -4275223137577532769L;
+
+    private final String topLevelPlanKey;
+    private final String buildResultKey;
+    private final List<Variable> variables;
+
+    public CreateOrUpdateVariableMessage(String topLevelPlanKey, String buildResultKey, List<Variable> variables) {
+        this.topLevelPlanKey = topLevelPlanKey;
+        this.buildResultKey = buildResultKey;
+        this.variables = variables;
+    }
+
+    public Object deliver() {
+        return null;
+    }
+
+    public List<Variable> getVariables() {
+        return variables;
+    }
+}
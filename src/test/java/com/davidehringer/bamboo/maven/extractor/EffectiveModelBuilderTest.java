@@ -0,0 +1,105 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+
+import org.apache.maven.model.Model;
+import org.junit.Test;
+
+/**
+ * @author David Ehringer
+ */
+public class EffectiveModelBuilderTest {
+
+    private File getFile(String name) {
+        URL url = getClass().getResource(name);
+        return new File(url.getFile());
+    }
+
+    @Test
+    public void coordinatesAndPropertiesAreInheritedFromALocalParent() throws IOException {
+        EffectiveModelBuilder builder = new EffectiveModelBuilder(new ParentModelCache(10));
+        PomValueExtractor extractor = new PomValueExtractorMavenModel(builder.build(getFile("/inheritance/module-a/pom.xml")));
+
+        assertThat(extractor.getValue("groupId"), is("com.davidehringer.bamboo.maven"));
+        assertThat(extractor.getValue("artifactId"), is("module-a"));
+        assertThat(extractor.getValue("version"), is("3.1-SNAPSHOT"));
+        assertThat(extractor.getValue("properties(source.code.level)"), is("1.6"));
+        assertThat(extractor.getValue("properties.overridden"), is("fromChild"));
+        assertThat(builder.getPomFiles(), is(Arrays.asList(getFile("/inheritance/module-a/pom.xml"),
+                getFile("/inheritance/pom.xml").getCanonicalFile())));
+    }
+
+    @Test
+    public void theRawModelDoesNotContainInheritedValues() throws IOException {
+        PomValueExtractor extractor = new PomValueExtractorMavenModel(getFile("/inheritance/module-a/pom.xml"));
+        assertThat(extractor.getValue("version"), is(""));
+        assertThat(extractor.getValue("properties(source.code.level)"), is(""));
+    }
+
+    @Test
+    public void parentsAreOnlyParsedOnce() throws IOException {
+        ParentModelCache cache = new ParentModelCache(10);
+        File parent = getFile("/inheritance/pom.xml");
+        Model first = cache.get(parent);
+
+        new EffectiveModelBuilder(cache).build(getFile("/inheritance/module-a/pom.xml"));
+
+        assertThat(cache.size(), is(1));
+        assertThat(cache.get(parent) == first, is(true));
+    }
+
+    @Test
+    public void aParentRewrittenWithoutANewSizeOrModificationTimeIsReadAgain() throws IOException {
+        File parent = File.createTempFile("parent", ".xml");
+        try {
+            writePom(parent, "1.0");
+            long lastModified = parent.lastModified();
+            ParentModelCache cache = new ParentModelCache(10);
+            assertThat(cache.get(parent).getVersion(), is("1.0"));
+
+            writePom(parent, "1.1");
+            parent.setLastModified(lastModified);
+
+            assertThat(cache.get(parent).getVersion(), is("1.1"));
+        } finally {
+            parent.delete();
+        }
+    }
+
+    private void writePom(File file, String version) throws IOException {
+        FileWriter writer = new FileWriter(file);
+        writer.write("<project><modelVersion>4.0.0</modelVersion><groupId>g</groupId><artifactId>a</artifactId>"
+                + "<version>" + version + "</version></project>");
+        writer.close();
+    }
+
+    @Test
+    public void aPomWithoutAParentIsUnchanged() throws IOException {
+        EffectiveModelBuilder builder = new EffectiveModelBuilder(new ParentModelCache(10));
+        Model model = builder.build(getFile("/pom-basic.xml"));
+        assertThat(model.getVersion(), is("2.3-SNAPSHOT"));
+        assertThat(builder.getPomFiles().size(), is(1));
+    }
+}
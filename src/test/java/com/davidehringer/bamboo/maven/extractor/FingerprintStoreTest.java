@@ -0,0 +1,175 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author David Ehringer
+ */
+public class FingerprintStoreTest {
+
+    private static final List<String> VERSION = Arrays.asList("version");
+
+    private File dir;
+    private File pom;
+    private File storeFile;
+
+    @Before
+    public void createPom() throws IOException {
+        dir = File.createTempFile("fingerprints", "");
+        dir.delete();
+        dir.mkdirs();
+        pom = new File(dir, "pom.xml");
+        writePom("1.0");
+        storeFile = new File(dir, "store/fingerprints.properties");
+    }
+
+    @After
+    public void deleteFiles() {
+        for (File file : Arrays.asList(storeFile, storeFile.getParentFile(), pom, dir)) {
+            file.delete();
+        }
+    }
+
+    private void writePom(String version) throws IOException {
+        FileWriter writer = new FileWriter(pom);
+        writer.write("<project><modelVersion>4.0.0</modelVersion><groupId>g</groupId><artifactId>a</artifactId>"
+                + "<version>" + version + "</version></project>");
+        writer.close();
+    }
+
+    private List<FileFingerprint> fingerprint() throws IOException {
+        long lastModified = pom.lastModified();
+        return Collections.singletonList(new FileFingerprint(pom, lastModified, MavenModelReader.buffer(pom)));
+    }
+
+    private Map<String, String> values(String version) {
+        Map<String, String> values = new LinkedHashMap<String, String>();
+        values.put("version", version);
+        return values;
+    }
+
+    @Test
+    public void valuesAreReusedByANewStoreWhileThePomIsUnchanged() throws IOException {
+        new FingerprintStore(storeFile).put("key", fingerprint(), values("1.0"));
+
+        FingerprintStore store = new FingerprintStore(storeFile);
+        assertThat(store.get("key"), is(values("1.0")));
+        assertThat(store.get("other"), is(nullValue()));
+        assertThat(store.getHits(), is(1));
+        assertThat(store.getMisses(), is(1));
+    }
+
+    @Test
+    public void aChangedPomIsNotReused() throws IOException {
+        new FingerprintStore(storeFile).put("key", fingerprint(), values("1.0"));
+        writePom("1.1");
+
+        assertThat(new FingerprintStore(storeFile).get("key"), is(nullValue()));
+    }
+
+    @Test
+    public void aTouchedButIdenticalPomIsReused() throws IOException {
+        new FingerprintStore(storeFile).put("key", fingerprint(), values("1.0"));
+        pom.setLastModified(pom.lastModified() - 60000);
+
+        assertThat(new FingerprintStore(storeFile).get("key"), is(values("1.0")));
+    }
+
+    @Test
+    public void aPomChangedAfterItWasReadIsNotReused() throws IOException {
+        pom.setLastModified(pom.lastModified() - 60000);
+        List<FileFingerprint> fingerprint = fingerprint();
+        writePom("1.1");
+
+        FingerprintStore store = new FingerprintStore(storeFile);
+        store.put("key", fingerprint, values("1.0"));
+
+        assertThat(store.get("key"), is(nullValue()));
+    }
+
+    @Test
+    public void onlyTheValuesStoredLastAreKept() throws IOException {
+        FingerprintStore store = new FingerprintStore(storeFile, 2);
+        store.put("first", fingerprint(), values("1.0"));
+        store.put("second", fingerprint(), values("1.0"));
+        store.put("first", fingerprint(), values("1.0"));
+        store.put("third", fingerprint(), values("1.0"));
+
+        FingerprintStore reloaded = new FingerprintStore(storeFile, 2);
+        assertThat(reloaded.size(), is(2));
+        assertThat(reloaded.get("second"), is(nullValue()));
+        assertThat(reloaded.get("first"), is(values("1.0")));
+        assertThat(reloaded.get("third"), is(values("1.0")));
+    }
+
+    @Test
+    public void theFactoryOnlyParsesWhenThePomChanged() throws IOException {
+        PomValueExtractorFactory factory = new PomValueExtractorFactory();
+        ExtractionOptions options = new ExtractionOptions();
+        FingerprintStore store = new FingerprintStore(storeFile);
+
+        assertThat(factory.create(pom, VERSION, options, store).getValue("version"), is("1.0"));
+        assertThat(factory.create(pom, VERSION, options, store).getValue("version"), is("1.0"));
+        assertThat(store.getHits(), is(1));
+
+        writePom("1.1");
+        assertThat(factory.create(pom, VERSION, options, store).getValue("version"), is("1.1"));
+        assertThat(store.getMisses(), is(2));
+    }
+
+    @Test
+    public void aChangedParentForcesAFreshExtraction() throws IOException {
+        File child = new File(dir, "child/pom.xml");
+        child.getParentFile().mkdirs();
+        FileWriter writer = new FileWriter(child);
+        writer.write("<project><modelVersion>4.0.0</modelVersion><parent><groupId>g</groupId>"
+                + "<artifactId>a</artifactId><version>1.0</version></parent><artifactId>child</artifactId></project>");
+        writer.close();
+        PomValueExtractorFactory factory = new PomValueExtractorFactory();
+        ExtractionOptions options = new ExtractionOptions();
+        options.setEffectiveModel(true);
+        FingerprintStore store = new FingerprintStore(storeFile);
+
+        try {
+            assertThat(factory.create(child, VERSION, options, store).getValue("version"), is("1.0"));
+            writePom("1.1");
+            // The child still declares parent version 1.0, so the parent is
+            // no longer matched and the version falls back to <parent>
+            factory.create(child, VERSION, options, store);
+            assertThat(store.getMisses(), is(2));
+        } finally {
+            child.delete();
+            child.getParentFile().delete();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Arrays;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.junit.Test;
+
+/**
+ * @author David Ehringer
+ */
+public class PomInputTest {
+
+    private File getFile(String name) {
+        URL url = getClass().getResource(name);
+        return new File(url.getFile());
+    }
+
+    private byte[] readFully(InputStream input) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[100];
+        int n;
+        while ((n = input.read(buffer)) >= 0) {
+            bytes.write(buffer, 0, n);
+        }
+        input.close();
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void theEncodingDeclaredInThePrologIsUsed() throws IOException {
+        PomValueExtractor extractor = new PomValueExtractorMavenModel(getFile("/pom-latin1.xml"));
+        assertThat(extractor.getValue("name"), is("Ren\u00e9's Caf\u00e9"));
+    }
+
+    @Test
+    public void aMappedFileReadsTheSameBytesAsAStream() throws IOException {
+        File pom = getFile("/pom-basic.xml");
+        byte[] mapped = readFully(PomInput.map(pom));
+        assertThat(mapped.length, is((int) pom.length()));
+        assertTrue(Arrays.equals(mapped, readFully(PomInput.open(pom))));
+    }
+
+    @Test
+    public void aMappedFileCanBeParsed() throws IOException, XmlPullParserException {
+        Model model = new MavenXpp3Reader().read(PomInput.map(getFile("/pom-latin1.xml")));
+        assertThat(model.getName(), is("Ren\u00e9's Caf\u00e9"));
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.net.URL;
+
+import org.apache.maven.model.Model;
+import org.junit.Test;
+
+/**
+ * @author David Ehringer
+ */
+public class PomParserPoolTest {
+
+    private File getFile(String name) {
+        URL url = getClass().getResource(name);
+        return new File(url.getFile());
+    }
+
+    @Test
+    public void oneParserIsReusedForConsecutiveFiles() throws FileNotFoundException {
+        PomParserPool pool = new PomParserPool(2);
+
+        Model basic = pool.read(getFile("/pom-basic.xml"));
+        Model parent = pool.read(getFile("/parent-pom.xml"));
+        Model again = pool.read(getFile("/pom-basic.xml"));
+
+        assertThat(basic.getArtifactId(), is("maven-pom-parser"));
+        assertThat(parent.getModules().get(0), is("module-1"));
+        assertThat(again.getDependencies().size(), is(4));
+        assertThat(pool.getCreated(), is(1));
+        assertThat(pool.getIdle(), is(1));
+    }
+
+    @Test
+    public void aParserCanBeReusedAfterAnInvalidPom() throws FileNotFoundException {
+        PomParserPool pool = new PomParserPool(2);
+        try {
+            pool.read(getFile("/pom-malformed-after-gav.xml"));
+            fail("Expected an InvalidPomException");
+        } catch (InvalidPomException e) {
+            // expected
+        }
+
+        assertThat(pool.read(getFile("/pom-basic.xml")).getVersion(), is("2.3-SNAPSHOT"));
+        assertThat(pool.getCreated(), is(1));
+    }
+
+    @Test
+    public void theEncodingIsDetectedForEveryFile() throws FileNotFoundException {
+        PomParserPool pool = new PomParserPool(2);
+        pool.read(getFile("/pom-basic.xml"));
+
+        Model latin1 = pool.read(getFile("/pom-latin1.xml"));
+        assertThat(latin1.getName(), is("Ren\u00e9's Caf\u00e9"));
+        assertThat(pool.getCreated(), is(1));
+    }
+
+    @Test
+    public void idleParsersAreBounded() throws Exception {
+        final PomParserPool pool = new PomParserPool(1);
+        final File pom = getFile("/pom-basic.xml");
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 20; j++) {
+                        try {
+                            pool.read(pom);
+                        } catch (FileNotFoundException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(pool.getIdle(), is(1));
+    }
+
+    @Test
+    public void modelsShareRepeatedValues() throws FileNotFoundException {
+        PomParserPool pool = new PomParserPool(2);
+
+        Model first = pool.read(getFile("/pom-basic.xml"));
+        Model second = pool.read(getFile("/pom-basic.xml"));
+
+        assertThat(second.getGroupId(), sameInstance(first.getGroupId()));
+        assertThat(second.getDependencies().get(0).getVersion(), sameInstance(first.getDependencies().get(0)
+                .getVersion()));
+        assertThat(second.getProperties().getProperty("myProperty"), sameInstance(first.getProperties()
+                .getProperty("myProperty")));
+    }
+}
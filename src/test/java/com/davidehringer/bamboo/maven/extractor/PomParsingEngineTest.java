@@ -0,0 +1,128 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * @author David Ehringer
+ */
+public class PomParsingEngineTest {
+
+    private File getFile(String name) {
+        URL url = getClass().getResource(name);
+        return new File(url.getFile());
+    }
+
+    private List<File> modules() {
+        return Arrays.asList(getFile("/inheritance/pom.xml"), getFile("/inheritance/module-a/pom.xml"),
+                getFile("/inheritance/module-b/pom.xml"), getFile("/inheritance/module-b/module-c/pom.xml"));
+    }
+
+    @Test
+    public void resultsAreReturnedInTheOrderOfTheFiles() throws FileNotFoundException {
+        List<File> files = new ArrayList<File>();
+        for (int i = 0; i < 10; i++) {
+            files.addAll(modules());
+        }
+
+        List<Map<String, String>> values = new PomParsingEngine(3).extract(files, Arrays.asList("artifactId"),
+                new ExtractionOptions());
+
+        assertThat(values.size(), is(40));
+        for (int i = 0; i < files.size(); i += 4) {
+            assertThat(values.get(i).get("artifactId"), is("inheritance-parent"));
+            assertThat(values.get(i + 1).get("artifactId"), is("module-a"));
+            assertThat(values.get(i + 2).get("artifactId"), is("module-b"));
+            assertThat(values.get(i + 3).get("artifactId"), is("module-c"));
+        }
+    }
+
+    @Test
+    public void noMoreThanTheConfiguredNumberOfFilesAreParsedAtOnce() throws FileNotFoundException {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        List<File> files = new ArrayList<File>();
+        for (int i = 0; i < 8; i++) {
+            files.addAll(modules());
+        }
+
+        new PomParsingEngine(2, 2, new PomValueExtractorFactory()).process(files,
+                new PomParsingEngine.PomTask<Void>() {
+                    public Void process(File pomFile) {
+                        int now = running.incrementAndGet();
+                        synchronized (maxRunning) {
+                            maxRunning.set(Math.max(maxRunning.get(), now));
+                        }
+                        try {
+                            Thread.sleep(5);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        running.decrementAndGet();
+                        return null;
+                    }
+                });
+
+        assertTrue(maxRunning.get() <= 2);
+    }
+
+    @Test
+    public void aSessionRunsAllItsBatchesOnOnePool() throws FileNotFoundException {
+        final Set<String> pools = Collections.synchronizedSet(new HashSet<String>());
+        PomParsingEngine.PomTask<Void> task = new PomParsingEngine.PomTask<Void>() {
+            public Void process(File pomFile) {
+                String thread = Thread.currentThread().getName();
+                pools.add(thread.substring(0, thread.lastIndexOf('-')));
+                return null;
+            }
+        };
+
+        PomParsingEngine.Session session = new PomParsingEngine(2).open();
+        try {
+            session.process(modules(), task);
+            session.process(modules(), task);
+        } finally {
+            session.close();
+        }
+
+        assertThat(pools.size(), is(1));
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void aMissingFileFailsTheWholeBatch() throws FileNotFoundException {
+        List<File> files = new ArrayList<File>(modules());
+        files.add(new File("does-not-exist/pom.xml"));
+
+        new PomParsingEngine(2).extract(files, Arrays.asList("artifactId"), new ExtractionOptions());
+    }
+}
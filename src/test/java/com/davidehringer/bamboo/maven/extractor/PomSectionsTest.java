@@ -0,0 +1,92 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * @author David Ehringer
+ */
+public class PomSectionsTest {
+
+    private static final String POM = "<?xml version=\"1.0\"?>\n" //
+            + "<!DOCTYPE project [ <!ENTITY x \"y\"> ]>\n" //
+            + "<project a=\"1 > 0\">\n" //
+            + "  <!-- <build> -->\n" //
+            + "  <version>1.0</version>\n" //
+            + "  <description/>\n" //
+            + "  <build><plugins><plugin/></plugins></build>\n" //
+            + "</project>\n";
+
+    private ByteBuffer buffer(String text, String charset) throws IOException {
+        return ByteBuffer.wrap(text.getBytes(charset));
+    }
+
+    private String read(InputStream input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        int b;
+        while ((b = input.read()) != -1) {
+            output.write(b);
+        }
+        return output.toString("UTF-8");
+    }
+
+    @Test
+    public void topLevelSectionsAreFoundInDocumentOrder() throws IOException {
+        PomSections sections = PomSections.scan(buffer(POM, "UTF-8"));
+
+        assertThat(new ArrayList<String>(sections.getNames()), is(Arrays.asList("version", "description", "build")));
+    }
+
+    @Test
+    public void onlyTheRequestedSectionsAreOpened() throws IOException {
+        PomSections sections = PomSections.scan(buffer(POM, "UTF-8"));
+
+        assertThat(read(sections.open(Arrays.asList("build", "version", "noSuchSection"))), is(
+                "<?xml version=\"1.0\"?>\n" //
+                + "<!DOCTYPE project [ <!ENTITY x \"y\"> ]>\n" //
+                + "<project a=\"1 > 0\">" //
+                + "<version>1.0</version>" //
+                + "<build><plugins><plugin/></plugins></build>" //
+                + "</project>\n"));
+    }
+
+    @Test
+    public void encodingsWithMultiByteMarkupAreNotScanned() throws IOException {
+        assertThat(PomSections.scan(buffer(POM, "UTF-16")), is(nullValue()));
+    }
+
+    @Test(expected = InvalidPomException.class)
+    public void unterminatedPomsAreRejected() throws IOException {
+        PomSections.scan(buffer("<project><version>1.0</version>", "UTF-8"));
+    }
+
+    @Test(expected = InvalidPomException.class)
+    public void otherRootElementsAreRejected() throws IOException {
+        PomSections.scan(buffer("<settings></settings>", "UTF-8"));
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.net.URL;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author David Ehringer
+ */
+public class PomValueExtractorCliTest {
+
+    private ByteArrayOutputStream out;
+    private ByteArrayOutputStream err;
+
+    @Before
+    public void createStreams() {
+        out = new ByteArrayOutputStream();
+        err = new ByteArrayOutputStream();
+    }
+
+    private String getPath(String name) {
+        URL url = getClass().getResource(name);
+        return new File(url.getFile()).getPath();
+    }
+
+    private int run(String... args) {
+        return PomValueExtractorCli.run(args, new PrintStream(out), new PrintStream(err));
+    }
+
+    private String lines(String... lines) {
+        StringBuilder text = new StringBuilder();
+        for (String line : lines) {
+            text.append(line).append(System.getProperty("line.separator"));
+        }
+        return text.toString();
+    }
+
+    @Test
+    public void plainElementsPrintOnlyTheirValues() {
+        int status = run("-f", getPath("/pom-basic.xml"), "version", "dependencies[artifactId=junit].version");
+
+        assertThat(status, is(PomValueExtractorCli.EXIT_OK));
+        assertThat(out.toString(), is(lines("2.3-SNAPSHOT", "4.10")));
+    }
+
+    @Test
+    public void namedElementsPrintVariables() {
+        int status = run("--file", getPath("/pom-basic.xml"), "javaVersion=properties(source.code.level)");
+
+        assertThat(status, is(PomValueExtractorCli.EXIT_OK));
+        assertThat(out.toString(), is(lines("javaVersion=1.6")));
+    }
+
+    @Test
+    public void withoutElementsTheGavIsPrinted() {
+        int status = run("-f", getPath("/pom-basic.xml"), "--strip-snapshot", "--prefix", "pom.");
+
+        assertThat(status, is(PomValueExtractorCli.EXIT_OK));
+        assertThat(out.toString(), is(lines("pom.groupId=com.davidehringer.bamboo.maven",
+                "pom.artifactId=maven-pom-parser", "pom.version=2.3")));
+    }
+
+    @Test
+    public void reactorVariablesAreQualifiedWithTheModule() {
+        int status = run("-f", getPath("/inheritance/pom.xml"), "--reactor", "--resolve-parents", "--threads", "2",
+                "version");
+
+        assertThat(status, is(PomValueExtractorCli.EXIT_OK));
+        assertThat(out.toString(), is(lines("inheritance-parent.version=3.1-SNAPSHOT", "module-a.version=3.1-SNAPSHOT",
+                "module-b.version=3.2-SNAPSHOT", "module-c.version=3.2-SNAPSHOT")));
+    }
+
+    @Test
+    public void aMissingPomFails() {
+        int status = run("-f", "no-such-pom.xml", "version");
+
+        assertThat(status, is(PomValueExtractorCli.EXIT_FAILED));
+        assertThat(err.toString(), containsString("POM file not found"));
+    }
+
+    @Test
+    public void invalidArgumentsPrintTheUsage() {
+        assertThat(run("--threads", "none"), is(PomValueExtractorCli.EXIT_USAGE));
+        assertThat(run("--no-such-option"), is(PomValueExtractorCli.EXIT_USAGE));
+        assertThat(err.toString(), containsString("Usage: "));
+    }
+}
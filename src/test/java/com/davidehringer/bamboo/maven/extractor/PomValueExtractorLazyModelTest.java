@@ -0,0 +1,86 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * @author David Ehringer
+ */
+public class PomValueExtractorLazyModelTest {
+
+    private File getFile(String name) {
+        URL url = getClass().getResource(name);
+        return new File(url.getFile());
+    }
+
+    @Test
+    public void onlyTheSectionsOfRequestedPropertiesAreParsed() throws FileNotFoundException {
+        PomValueExtractorLazyModel extractor = new PomValueExtractorLazyModel(getFile("/pom-lazy.xml"));
+
+        assertThat(extractor.getValue("build.finalName"), is("lazy-final"));
+        assertThat(extractor.getValue("parent.version"), is("1.0"));
+        assertThat(extractor.getParsedSections(), is((Object) new HashSet<String>(Arrays.asList("build", "parent"))));
+
+        assertThat(extractor.getValue("dependencies[artifactId=junit].version"), is("4.10"));
+        assertThat(extractor.getValue("properties.script"), is("if (a < b) { print(\"</properties>\"); }"));
+        assertThat(extractor.getValue("description"), is(""));
+        assertThat(extractor.getParsedSections().size(), is(5));
+    }
+
+    @Test(expected = InvalidPomException.class)
+    public void errorsAreReportedOnceTheirSectionIsParsed() throws FileNotFoundException {
+        PomValueExtractorLazyModel extractor = new PomValueExtractorLazyModel(getFile("/pom-lazy.xml"));
+        extractor.getValue("version");
+
+        extractor.getValue("profiles[id=broken].id");
+    }
+
+    @Test
+    public void valuesAreTheSameAsFromTheFullModel() throws FileNotFoundException {
+        File pom = getFile("/pom-basic.xml");
+        List<String> properties = Arrays.asList("version", "dependencies[3].version", "properties.myProperty",
+                "properties(source.code.level)", "build.plugins[artifactId=maven-jetty-plugin].version",
+                "parent.version", "modules[*]", "id");
+
+        Map<String, String> lazy = new PomValueExtractorLazyModel(pom).getValues(properties);
+        Map<String, String> full = new PomValueExtractorMavenModel(pom).getValues(properties);
+        assertThat(lazy, is(full));
+    }
+
+    @Test
+    public void theFactoryReadsPomsLazilyWhenAsked() throws FileNotFoundException {
+        ExtractionOptions options = new ExtractionOptions();
+        options.setLazyModel(true);
+        PomValueExtractor extractor = new PomValueExtractorFactory().create(getFile("/pom-lazy.xml"),
+                Arrays.asList("build.finalName"), options);
+
+        assertTrue(extractor instanceof PomValueExtractorLazyModel);
+        assertThat(extractor.getValue("build.finalName"), is("lazy-final"));
+    }
+}
@@ -21,6 +21,9 @@ import static org.junit.Assert.assertThat;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
 
 import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 import org.junit.Test;
@@ -98,4 +101,51 @@ public class PomValueExtractorMavenModelTest {
         PomValueExtractor extractor = new PomValueExtractorMavenModel(file);
         assertThat(extractor.getValue("modules[0]"), is("module-1"));
     }
+
+    @Test
+    public void manyValuesCanBeExtractedInOnePass() throws IOException,
+            XmlPullParserException {
+        File file = getFile("/pom-basic.xml");
+        PomValueExtractor extractor = new PomValueExtractorMavenModel(file);
+        Map<String, String> values = extractor.getValues(Arrays.asList("version",
+                "dependencies[3].artifactId", "dependencies[3].version",
+                "properties.myProperty", "properties(source.code.level)"));
+
+        assertThat(new ArrayList<String>(values.keySet()), is(Arrays.asList("version",
+                "dependencies[3].artifactId", "dependencies[3].version",
+                "properties.myProperty", "properties(source.code.level)")));
+        assertThat(values.get("version"), is("2.3-SNAPSHOT"));
+        assertThat(values.get("dependencies[3].artifactId"), is("hamcrest-all"));
+        assertThat(values.get("dependencies[3].version"), is("1.1"));
+        assertThat(values.get("properties.myProperty"), is("myValue"));
+        assertThat(values.get("properties(source.code.level)"), is("1.6"));
+    }
+
+    @Test
+    public void ifAParentElementIsNotInThePomAnEmptyStringIsReturned()
+            throws IOException, XmlPullParserException {
+        File file = getFile("/pom-basic.xml");
+        PomValueExtractor extractor = new PomValueExtractorMavenModel(file);
+        assertThat(extractor.getValue("parent.version"), is(""));
+        assertThat(extractor.getValue("build.finalName"), is(""));
+    }
+
+    @Test
+    public void dependenciesAndPluginsCanBeSelectedByTheirCoordinates() throws IOException,
+            XmlPullParserException {
+        File file = getFile("/pom-basic.xml");
+        PomValueExtractor extractor = new PomValueExtractorMavenModel(file);
+        assertThat(extractor.getValue("dependencies[artifactId=hamcrest-all].version"), is("1.1"));
+        assertThat(extractor.getValue("dependencies[groupId=org.apache.maven,artifactId=maven-model].version"),
+                is("3.0.4"));
+        assertThat(extractor.getValue("build.plugins[artifactId=maven-jetty-plugin].version"), is("6.1.24"));
+        assertThat(extractor.getValue("dependencies[artifactId=no-such-thing].version"), is(""));
+    }
+
+    @Test
+    public void wildcardValuesAreCommaSeparated() throws IOException, XmlPullParserException {
+        File file = getFile("/pom-basic.xml");
+        PomValueExtractor extractor = new PomValueExtractorMavenModel(file);
+        assertThat(extractor.getValue("dependencies[*].version"), is("3.0.4,1.8.3,4.10,1.1"));
+    }
 }
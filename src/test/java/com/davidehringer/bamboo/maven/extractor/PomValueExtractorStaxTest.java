@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * @author David Ehringer
+ */
+public class PomValueExtractorStaxTest {
+
+    private static final List<String> GAV = Arrays.asList("groupId", "artifactId", "version");
+
+    private File getFile(String name) {
+        URL url = getClass().getResource(name);
+        return new File(url.getFile());
+    }
+
+    @Test
+    public void theGAVCanBeExtractedFromAPom() throws IOException {
+        File file = getFile("/pom-basic.xml");
+        PomValueExtractor extractor = new PomValueExtractorStax(file, GAV);
+        assertThat(extractor.getValue("groupId"), is("com.davidehringer.bamboo.maven"));
+        assertThat(extractor.getValue("artifactId"), is("maven-pom-parser"));
+        assertThat(extractor.getValue("version"), is("2.3-SNAPSHOT"));
+    }
+
+    @Test
+    public void parsingStopsOnceAllRequestedElementsHaveBeenFound() throws IOException {
+        File file = getFile("/pom-malformed-after-gav.xml");
+        PomValueExtractor extractor = new PomValueExtractorStax(file, GAV);
+        assertThat(extractor.getValue("version"), is("2.3-SNAPSHOT"));
+    }
+
+    @Test(expected = InvalidPomException.class)
+    public void malformedContentIsReportedIfItIsReadBeforeAllElementsAreFound() throws IOException {
+        File file = getFile("/pom-malformed-after-gav.xml");
+        new PomValueExtractorStax(file, Arrays.asList("version", "description"));
+    }
+
+    @Test
+    public void ifAValueIsNotInThePomAnEmptyStringIsReturned() throws IOException {
+        File file = getFile("/parent-pom.xml");
+        PomValueExtractor extractor = new PomValueExtractorStax(file, Arrays.asList("version", "description"));
+        assertThat(extractor.getValue("description"), is(""));
+        assertThat(extractor.getValue("version"), is("2.0-SNAPSHOT"));
+    }
+
+    @Test(expected = NoSuchPropertyException.class)
+    public void elementsThatWereNotRequestedCannotBeExtracted() throws IOException {
+        File file = getFile("/pom-basic.xml");
+        PomValueExtractor extractor = new PomValueExtractorStax(file, GAV);
+        extractor.getValue("packaging");
+    }
+
+    @Test
+    public void onlySimpleTopLevelElementsAreSupported() {
+        assertTrue(PomValueExtractorStax.supports(GAV));
+        assertFalse(PomValueExtractorStax.supports(Arrays.asList("version", "parent.version")));
+        assertFalse(PomValueExtractorStax.supports(Arrays.asList("properties.myProperty")));
+        assertFalse(PomValueExtractorStax.supports(Arrays.asList("modules[0]")));
+    }
+}
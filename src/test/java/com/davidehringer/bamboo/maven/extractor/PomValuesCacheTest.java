@@ -0,0 +1,135 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * @author David Ehringer
+ */
+public class PomValuesCacheTest {
+
+    private static final List<String> PROPERTIES = Arrays.asList("properties.myProperty", "dependencies[0].version");
+
+    private File getFile(String name) {
+        URL url = getClass().getResource(name);
+        return new File(url.getFile());
+    }
+
+    private File copy(File file, File target) throws IOException {
+        target.getParentFile().mkdirs();
+        // Deleted in reverse order, the directory last
+        target.getParentFile().deleteOnExit();
+        target.deleteOnExit();
+        Files.copy(file.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return target;
+    }
+
+    @Test
+    public void aRepeatExtractionOfTheSamePomIsServedFromTheCache() throws IOException {
+        PomValuesCache cache = new PomValuesCache(10);
+        PomValueExtractorFactory factory = new PomValueExtractorFactory(cache);
+        File file = getFile("/pom-basic.xml");
+
+        factory.create(file, PROPERTIES);
+        PomValueExtractor extractor = factory.create(file, PROPERTIES);
+
+        assertThat(extractor.getValue("properties.myProperty"), is("myValue"));
+        assertThat(extractor.getValue("dependencies[0].version"), is("3.0.4"));
+        assertThat(cache.getMisses(), is(1L));
+        assertThat(cache.getHits(), is(1L));
+    }
+
+    @Test
+    public void eachFactoryCountsItsOwnLookups() throws IOException {
+        PomValuesCache cache = new PomValuesCache(10);
+        File file = getFile("/pom-basic.xml");
+        PomValueExtractorFactory first = new PomValueExtractorFactory(cache);
+        first.create(file, PROPERTIES);
+
+        PomValueExtractorFactory second = new PomValueExtractorFactory(cache);
+        second.create(file, PROPERTIES);
+
+        assertThat(first.getCacheMisses(), is(1));
+        assertThat(first.getCacheHits(), is(0));
+        assertThat(second.getCacheMisses(), is(0));
+        assertThat(second.getCacheHits(), is(1));
+    }
+
+    @Test
+    public void theKeyDependsOnTheContentAndTheRequestedProperties() throws IOException {
+        PomValuesCache cache = new PomValuesCache(10);
+        String key = cache.key(getFile("/pom-basic.xml"), PROPERTIES);
+
+        assertThat(cache.key(getFile("/pom-basic.xml"), PROPERTIES), is(key));
+        assertThat(cache.key(getFile("/parent-pom.xml"), PROPERTIES), is(not(key)));
+        assertThat(cache.key(getFile("/pom-basic.xml"), Collections.singletonList("version")), is(not(key)));
+    }
+
+    @Test
+    public void theKeyOfPathDerivedPropertiesDependsOnThePath() throws IOException {
+        PomValuesCache cache = new PomValuesCache(10);
+        File file = getFile("/pom-basic.xml");
+        File copy = new File(file.getParentFile(), "copy/pom-basic.xml");
+        List<String> pomFile = Collections.singletonList("pomFile");
+        List<String> projectDirectory = Collections.singletonList("projectDirectory.name");
+
+        assertThat(cache.key(file, PROPERTIES), is(cache.key(copy(file, copy), PROPERTIES)));
+        assertThat(cache.key(file, pomFile), is(not(cache.key(copy, pomFile))));
+        assertThat(cache.key(file, projectDirectory), is(not(cache.key(copy, projectDirectory))));
+    }
+
+    @Test
+    public void pathDerivedValuesAreNotServedForAnotherCheckout() throws IOException {
+        PomValueExtractorFactory factory = new PomValueExtractorFactory(new PomValuesCache(10));
+        File file = getFile("/pom-basic.xml");
+        File copy = copy(file, new File(file.getParentFile(), "copy/pom-basic.xml"));
+        List<String> properties = Arrays.asList("version", "projectDirectory");
+
+        assertThat(factory.create(file, properties).getValue("projectDirectory"), is(file.getParent()));
+        assertThat(factory.create(copy, properties).getValue("projectDirectory"), is(copy.getParent()));
+        assertThat(factory.getCacheHits(), is(0));
+    }
+
+    @Test
+    public void theLeastRecentlyUsedEntryIsEvicted() {
+        PomValuesCache cache = new PomValuesCache(2);
+        Map<String, String> values = Collections.singletonMap("version", "1.0");
+        cache.put("a", values);
+        cache.put("b", values);
+        cache.get("a");
+        cache.put("c", values);
+
+        assertThat(cache.size(), is(2));
+        assertThat(cache.get("b"), is(nullValue()));
+        assertThat(cache.get("a"), is(values));
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author David Ehringer
+ */
+public class PropertyInterpolatorTest {
+
+    private PomValueExtractor extractor;
+
+    private File getFile(String name) {
+        URL url = getClass().getResource(name);
+        return new File(url.getFile());
+    }
+
+    @Before
+    public void init() throws IOException {
+        Map<String, String> externalVariables = new HashMap<String, String>();
+        externalVariables.put("bamboo.buildNumber", "42");
+        PomValueExtractor pom = new PomValueExtractorMavenModel(getFile("/pom-interpolation.xml"));
+        extractor = new PomValueExtractorInterpolating(pom, externalVariables);
+    }
+
+    @Test
+    public void nestedPropertyReferencesAreResolved() {
+        assertThat(extractor.getValue("version"), is("2.4.0-SNAPSHOT"));
+    }
+
+    @Test
+    public void projectPathsAndExternalVariablesAreResolved() {
+        assertThat(extractor.getValue("properties(build.label)"), is("maven-pom-parser-42"));
+    }
+
+    @Test
+    public void unresolvableExpressionsAreLeftAsTheyAre() {
+        assertThat(extractor.getValue("properties.unresolved"), is("${no.such.property}"));
+    }
+
+    @Test
+    public void valuesWithoutExpressionsAreUnchanged() {
+        assertThat(extractor.getValue("artifactId"), is("maven-pom-parser"));
+    }
+
+    @Test(expected = InvalidPomException.class)
+    public void cyclesAreDetected() {
+        extractor.getValue("properties(uses.cycle)");
+    }
+
+    @Test
+    public void aCycleNamesOnlyTheExpressionsThatFormIt() {
+        try {
+            extractor.getValue("properties(uses.cycle)");
+            fail();
+        } catch (CyclicReferenceException e) {
+            assertThat(e.getChain(), is("${cycle.a} => ${cycle.b} => ${cycle.a}"));
+        }
+    }
+
+    @Test
+    public void eachExpressionIsOnlyResolvedOnce() {
+        CountingExtractor pom = new CountingExtractor();
+        PropertyInterpolator interpolator = new PropertyInterpolator(pom, new HashMap<String, String>());
+
+        assertThat(interpolator.interpolate("${a}-${a}"), is("1-1"));
+        assertThat(interpolator.interpolate("${a}"), is("1"));
+        assertThat(pom.lookups, is(1));
+    }
+
+    private static class CountingExtractor implements PomValueExtractor {
+
+        private int lookups = 0;
+
+        public String getValue(String property) {
+            lookups++;
+            return "1";
+        }
+
+        public Map<String, String> getValues(Collection<String> properties) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author David Ehringer
+ */
+public class PropertyPathCompilerTest {
+
+    private Model model;
+
+    @Before
+    public void createModel() {
+        model = new Model();
+        model.setVersion("2.3-SNAPSHOT");
+        Build build = new Build();
+        build.setFinalName("final-name");
+        model.setBuild(build);
+        Dependency dependency = new Dependency();
+        dependency.setArtifactId("maven-model");
+        model.addDependency(dependency);
+        Dependency junit = new Dependency();
+        junit.setGroupId("junit");
+        junit.setArtifactId("junit");
+        junit.setVersion("4.10");
+        model.addDependency(junit);
+        model.addModule("module-a");
+        model.addModule("module-b");
+        model.addProperty("source.code.level", "1.6");
+    }
+
+    @Test
+    public void compiledPathsAreCachedPerExpression() {
+        assertThat(PropertyPathCompiler.compile("build.finalName"),
+                sameInstance(PropertyPathCompiler.compile("build.finalName")));
+    }
+
+    @Test
+    public void nestedIndexedAndMappedSegmentsCanBeEvaluated() {
+        assertThat(PropertyPathCompiler.compile("version").evaluate(model), is((Object) "2.3-SNAPSHOT"));
+        assertThat(PropertyPathCompiler.compile("build.finalName").evaluate(model), is((Object) "final-name"));
+        assertThat(PropertyPathCompiler.compile("dependencies[0].artifactId").evaluate(model),
+                is((Object) "maven-model"));
+        assertThat(PropertyPathCompiler.compile("properties(source.code.level)").evaluate(model),
+                is((Object) "1.6"));
+    }
+
+    @Test
+    public void unsetIntermediateValuesEvaluateToNull() {
+        assertThat(PropertyPathCompiler.compile("parent.version").evaluate(model), is(nullValue()));
+    }
+
+    @Test(expected = NoSuchPropertyException.class)
+    public void unknownPropertiesAreRejected() {
+        PropertyPathCompiler.compile("build.noSuchThing").evaluate(model);
+    }
+
+    @Test(expected = NoSuchPropertyException.class)
+    public void indexesOutOfBoundsAreRejected() {
+        PropertyPathCompiler.compile("dependencies[2].artifactId").evaluate(model);
+    }
+
+    @Test
+    public void listElementsCanBeSelectedByTheirProperties() {
+        assertThat(PropertyPathCompiler.compile("dependencies[artifactId=junit].version").evaluate(model),
+                is((Object) "4.10"));
+        assertThat(PropertyPathCompiler.compile("dependencies[groupId=junit, artifactId=junit].version")
+                .evaluate(model), is((Object) "4.10"));
+        assertThat(PropertyPathCompiler.compile("dependencies[groupId=junit,artifactId=maven-model].version")
+                .evaluate(model), is(nullValue()));
+        assertThat(PropertyPathCompiler.compile("dependencies[artifactId=no-such-thing].version").evaluate(model),
+                is(nullValue()));
+    }
+
+    @Test
+    public void wildcardsSelectEveryElement() {
+        assertThat(PropertyPathCompiler.compile("modules[*]").evaluate(model).toString(), is("module-a,module-b"));
+        assertThat(PropertyPathCompiler.compile("dependencies[*].artifactId").evaluate(model).toString(),
+                is("maven-model,junit"));
+        assertThat(PropertyPathCompiler.compile("dependencies[*].version").evaluate(model).toString(), is("4.10"));
+    }
+
+    @Test
+    public void selectorsIndexEachListOncePerModel() {
+        ModelIndex index = new ModelIndex();
+        CompiledPropertyPath byArtifactId = PropertyPathCompiler.compile("dependencies[artifactId=junit].version");
+
+        byArtifactId.evaluate(model, index);
+        byArtifactId.evaluate(model, index);
+        PropertyPathCompiler.compile("dependencies[artifactId=maven-model].groupId").evaluate(model, index);
+        assertThat(index.size(), is(1));
+
+        PropertyPathCompiler.compile("dependencies[groupId=junit].version").evaluate(model, index);
+        assertThat(index.size(), is(2));
+    }
+
+    @Test(expected = NoSuchPropertyException.class)
+    public void malformedSelectorsAreRejected() {
+        PropertyPathCompiler.compile("dependencies[=junit].version");
+    }
+
+    @Test(expected = NoSuchPropertyException.class)
+    public void malformedExpressionsAreRejected() {
+        PropertyPathCompiler.compile("properties(source.code.level");
+    }
+}
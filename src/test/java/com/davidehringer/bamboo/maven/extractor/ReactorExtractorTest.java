@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * @author David Ehringer
+ */
+public class ReactorExtractorTest {
+
+    private static final List<String> GAV = Arrays.asList("groupId", "artifactId", "version");
+
+    private File getFile(String name) {
+        URL url = getClass().getResource(name);
+        return new File(url.getFile());
+    }
+
+    @Test
+    public void modulesAreReadRecursivelyInDeclarationOrder() throws FileNotFoundException {
+        List<ModuleValues> modules = new ReactorExtractor(2).extract(getFile("/inheritance/pom.xml"), GAV,
+                new ExtractionOptions());
+
+        assertThat(modules.size(), is(4));
+        assertThat(modules.get(0).getArtifactId(), is("inheritance-parent"));
+        assertThat(modules.get(1).getArtifactId(), is("module-a"));
+        assertThat(modules.get(2).getArtifactId(), is("module-b"));
+        assertThat(modules.get(3).getArtifactId(), is("module-c"));
+        assertThat(modules.get(2).getValues().get("version"), is("3.2-SNAPSHOT"));
+    }
+
+    @Test
+    public void inheritedValuesAreResolvedWhenTheEffectiveModelIsRequested() throws FileNotFoundException {
+        ExtractionOptions options = new ExtractionOptions();
+        options.setEffectiveModel(true);
+        List<ModuleValues> modules = new ReactorExtractor(2).extract(getFile("/inheritance/pom.xml"), GAV, options);
+
+        assertThat(modules.get(1).getValues().get("version"), is("3.1-SNAPSHOT"));
+        assertThat(modules.get(3).getValues().get("version"), is("3.2-SNAPSHOT"));
+        assertThat(modules.get(3).getValues().get("groupId"), is("com.davidehringer.bamboo.maven"));
+    }
+
+    @Test
+    public void aPomWithoutModulesIsASingleModuleReactor() throws FileNotFoundException {
+        List<ModuleValues> modules = new ReactorExtractor().extract(getFile("/pom-basic.xml"), GAV,
+                new ExtractionOptions());
+        assertThat(modules.size(), is(1));
+    }
+
+    @Test
+    public void modulesSharingAnArtifactIdAreNamedWithTheirGroupId() throws FileNotFoundException {
+        List<ModuleValues> modules = new ReactorExtractor(2).extract(getFile("/reactor-same-artifact/pom.xml"), GAV,
+                new ExtractionOptions());
+
+        assertThat(modules.get(0).getName(), is("reactor-same-artifact"));
+        assertThat(modules.get(1).getName(), is("com.example.first.core"));
+        assertThat(modules.get(2).getName(), is("com.example.core"));
+        assertThat(modules.get(2).getValues().get("version"), is("1.2"));
+    }
+
+    @Test(expected = InvalidPomException.class)
+    public void modulesWithTheSameCoordinatesAreRejected() throws FileNotFoundException {
+        new ReactorExtractor(2).extract(getFile("/reactor-duplicate-module/pom.xml"), GAV, new ExtractionOptions());
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.davidehringer.bamboo.maven.extractor;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * @author David Ehringer
+ */
+public class StringDeduplicatorTest {
+
+    @Test
+    public void equalStringsShareTheFirstInstance() {
+        StringDeduplicator deduplicator = new StringDeduplicator(1024);
+        String first = new String("com.davidehringer");
+        String second = new String("com.davidehringer");
+
+        assertThat(deduplicator.deduplicate(first), sameInstance(first));
+        assertThat(deduplicator.deduplicate(second), sameInstance(first));
+        assertThat(deduplicator.getDuplicates(), is(1L));
+        assertThat(deduplicator.getBytesSaved(), is(40L + 2 * first.length()));
+    }
+
+    @Test
+    public void longStringsAndNullAreLeftAlone() {
+        StringDeduplicator deduplicator = new StringDeduplicator(1024);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i <= StringDeduplicator.MAX_LENGTH; i++) {
+            text.append('x');
+        }
+        String first = text.toString();
+        String second = text.toString();
+
+        deduplicator.deduplicate(first);
+        assertThat(deduplicator.deduplicate(second), sameInstance(second));
+        assertThat(deduplicator.deduplicate(null), is(nullValue()));
+        assertThat(deduplicator.size(), is(0));
+    }
+
+    @Test
+    public void theTableIsBounded() {
+        StringDeduplicator deduplicator = new StringDeduplicator(64);
+        for (int i = 0; i < 10000; i++) {
+            deduplicator.deduplicate("version-" + i);
+        }
+        assertTrue(deduplicator.size() <= 64);
+    }
+}